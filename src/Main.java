@@ -21,7 +21,7 @@ public class Main {
     private static void startGameWithPlayer(String playerName, client.JSONDatabase database) {
         try {
             
-            GameClient gameClient = new GameClient();
+            GameClient gameClient = new GameClient(playerName);
             
             
             if (gameClient.getGamePanel() != null) {
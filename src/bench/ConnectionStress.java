@@ -0,0 +1,150 @@
+package bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import server.GameServer;
+import server.ServerProtocol;
+
+public class ConnectionStress {
+    private static final long TIMEOUT_MS = 60000;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String[] modes = args.length > 1 ? args[1].split(",") : new String[] { "platform", "virtual" };
+
+        for (String mode : modes) {
+            runMode(mode, connections);
+        }
+    }
+
+    private static void runMode(String mode, int connections) throws Exception {
+        ServerProtocol protocol = new ServerProtocol(new HashMap<>(), new ArrayList<>(), new ArrayList<>());
+        ServerSocket serverSocket = new ServerSocket(0, 4096);
+        ExecutorService executor = GameServer.createConnectionExecutor(mode);
+        Thread acceptor = new Thread(() -> {
+            try {
+                GameServer.serve(serverSocket, protocol, executor);
+            } catch (IOException e) {
+                System.out.println("Acceptor failed: " + e.getMessage());
+            }
+        }, "stress-acceptor");
+        acceptor.start();
+
+        long heapBefore = usedHeap();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        long rssBefore = residentSetKb();
+
+        InetSocketAddress address = new InetSocketAddress("localhost", serverSocket.getLocalPort());
+        Selector selector = Selector.open();
+        List<SocketChannel> channels = new ArrayList<>();
+        long[] latencies = new long[connections];
+        int answered = 0;
+        long acceptStart = System.nanoTime();
+
+        for (int i = 0; i < connections; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new long[] { i, System.nanoTime() });
+            channels.add(channel);
+            answered += drain(selector, latencies, 0);
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (answered < connections && System.currentTimeMillis() < deadline) {
+            answered += drain(selector, latencies, 100);
+        }
+        long acceptMillis = (System.nanoTime() - acceptStart) / 1_000_000;
+
+        long heapAfter = usedHeap();
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+        long rssAfter = residentSetKb();
+
+        long[] sorted = Arrays.copyOf(latencies, answered);
+        Arrays.sort(sorted);
+
+        System.out.println("== " + mode + " threads, " + connections + " connections ==");
+        System.out.println("Connected: " + answered + "/" + connections + " in " + acceptMillis + " ms");
+        if (answered > 0) {
+            System.out.println("Accept latency p50: " + micros(sorted, 0.50) + " us, p99: " + micros(sorted, 0.99)
+                    + " us, max: " + sorted[sorted.length - 1] / 1000 + " us");
+            System.out.println("Heap per connection: " + (heapAfter - heapBefore) / answered + " bytes");
+            if (rssBefore > 0) {
+                System.out.println("RSS per connection: " + (rssAfter - rssBefore) * 1024 / answered + " bytes");
+            }
+        }
+        System.out.println("Platform threads: " + threadsBefore + " -> " + threadsAfter);
+
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+        selector.close();
+        serverSocket.close();
+        executor.close();
+        acceptor.join();
+    }
+
+    private static int drain(Selector selector, long[] latencies, long timeout) throws IOException {
+        int firstReads = 0;
+        if (timeout > 0) {
+            selector.select(timeout);
+        } else {
+            selector.selectNow();
+        }
+
+        ByteBuffer sink = ByteBuffer.allocate(64 * 1024);
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+
+            long[] state = (long[]) key.attachment();
+            SocketChannel channel = (SocketChannel) key.channel();
+            sink.clear();
+            int read = channel.read(sink);
+            if (read > 0 && state[1] != 0) {
+                latencies[(int) state[0]] = System.nanoTime() - state[1];
+                state[1] = 0;
+                firstReads++;
+            } else if (read < 0) {
+                key.cancel();
+            }
+        }
+        return firstReads;
+    }
+
+    private static long micros(long[] sorted, double percentile) {
+        int index = (int) Math.min(sorted.length - 1, Math.floor(sorted.length * percentile));
+        return sorted[index] / 1000;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long residentSetKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException ignored) {
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,72 @@
+package bench;
+
+import client.JSONDatabase;
+import common.LatencyHistogram;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+import server.ServerOptions;
+
+public class DatabaseLatency {
+    public static void main(String[] args) throws Exception {
+        ServerOptions options = new ServerOptions(args);
+        int players = options.getInt("players", 5000);
+        int saves = options.getInt("saves", 300);
+        int frameMillis = options.getInt("frame-ms", 16);
+        int flushMillis = options.getInt("flush-ms", 2000);
+
+        System.out.println("Database latency: " + players + " players on disk, " + saves + " saves on the EDT every " + frameMillis + "ms");
+        System.out.printf("%-14s %10s %10s %10s %10s  %s%n", "mode", "mean ms", "p50 ms", "p99 ms", "max ms", "database");
+        for (String mode : new String[] { "sync", "write-behind" }) {
+            run(mode, players, saves, frameMillis, flushMillis);
+        }
+    }
+
+    private static void run(String mode, int players, int saves, int frameMillis, int flushMillis) throws Exception {
+        Path file = Files.createTempFile("player_data", ".txt");
+        try {
+            JSONDatabase seed = new JSONDatabase(file, flushMillis);
+            for (int i = 0; i < players; i++) {
+                seed.savePlayerData("player" + i, playerData(i));
+            }
+            seed.close();
+
+            JSONDatabase database = new JSONDatabase(file, flushMillis);
+            database.start();
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (int i = 0; i < saves; i++) {
+                int money = i;
+                onEdt(() -> {
+                    long start = System.nanoTime();
+                    database.savePlayerData("player0", playerData(money));
+                    if (mode.equals("sync")) {
+                        database.saveDatabase();
+                    }
+                    histogram.record(System.nanoTime() - start);
+                });
+                Thread.sleep(frameMillis);
+            }
+            database.close();
+
+            System.out.printf("%-14s %10.3f %10.3f %10.3f %10.3f  %s%n", mode, histogram.getMeanMicros() / 1000.0,
+                    histogram.percentileMicros(0.50) / 1000.0, histogram.percentileMicros(0.99) / 1000.0,
+                    histogram.getMaxMicros() / 1000.0, database.summarize());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static JSONDatabase.PlayerData playerData(int money) {
+        Map<String, Integer> inventory = new HashMap<>();
+        inventory.put("Feather", money % 50);
+        inventory.put("Coin", money % 20);
+        return new JSONDatabase.PlayerData("", money, inventory, 1, 0);
+    }
+
+    private static void onEdt(Runnable task) throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(task);
+    }
+}
@@ -0,0 +1,118 @@
+package bench;
+
+import client.JSONDatabase;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Stream;
+import server.ServerOptions;
+
+public class DatabaseStartup {
+    public static void main(String[] args) throws IOException {
+        ServerOptions options = new ServerOptions(args);
+        int players = options.getInt("players", 100000);
+        int runs = Math.max(1, options.getInt("runs", 3));
+        String[] engines = options.get("engines", "text,journal,mapped").split(",");
+
+        Path dir = Files.createTempDirectory("player-db-startup");
+        try {
+            Path file = dir.resolve("player_data.txt");
+            writeTextDatabase(file, players);
+            System.out.println("Database startup: " + players + " players, " + Files.size(file) / 1024 + " KiB text file, best of " + runs + " runs");
+
+            String[][] modes = new String[engines.length + 1][];
+            for (int i = 0; i < engines.length; i++) {
+                modes[i] = new String[] { engines[i], "lazy" };
+            }
+            modes[engines.length] = new String[] { "text", "parse-all" };
+
+            double[][] results = new double[modes.length][];
+            for (int run = 0; run <= runs; run++) {
+                for (int i = 0; i < modes.length; i++) {
+                    double[] result = run(file, modes[i][0], modes[i][1].equals("parse-all"), players);
+                    if (run > 0 && (results[i] == null || result[0] + result[1] < results[i][0] + results[i][1])) {
+                        results[i] = result;
+                    }
+                }
+            }
+
+            System.out.printf("%-18s %10s %10s %12s%n", "engine", "open ms", "names ms", "profile ms");
+            for (int i = 0; i < modes.length; i++) {
+                System.out.printf("%-18s %10.1f %10.1f %12.3f%n", modes[i][0] + (modes[i][1].equals("lazy") ? "" : " " + modes[i][1]),
+                        results[i][0], results[i][1], results[i][2]);
+            }
+            verify(file, players);
+            verifyMapped(file, players);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static double[] run(Path file, String engine, boolean parseAll, int players) {
+        long start = System.nanoTime();
+        JSONDatabase database = new JSONDatabase(file, 60_000, engine);
+        long opened = System.nanoTime();
+        Set<String> names = database.getAllPlayerNames();
+        if (parseAll) {
+            for (String name : names) {
+                database.getPlayerData(name);
+            }
+        }
+        long listed = System.nanoTime();
+        JSONDatabase.PlayerData playerData = database.getPlayerData("player" + (players / 2));
+        long profiled = System.nanoTime();
+        if (names.size() != players || playerData.money != players / 2) {
+            throw new IllegalStateException(engine + " returned " + names.size() + " players, money " + playerData.money);
+        }
+        database.close();
+        return new double[] { (opened - start) / 1_000_000.0, (listed - opened) / 1_000_000.0, (profiled - listed) / 1_000_000.0 };
+    }
+
+    private static void verify(Path file, int players) {
+        JSONDatabase database = new JSONDatabase(file, 60_000, "text");
+        JSONDatabase.PlayerData changed = database.getPlayerData("player1");
+        changed.money = -1;
+        database.savePlayerData("player1", changed);
+        database.deletePlayer("player2");
+        database.close();
+
+        database = new JSONDatabase(file, 60_000, "text");
+        boolean ok = database.getPlayerData("player1").money == -1 && !database.playerExists("player2")
+                && database.getPlayerData("player" + (players - 1)).inventory.get("Feather") == (players - 1) % 7
+                && database.getAllPlayerNames().size() == players - 1;
+        database.close();
+        System.out.println("Rewrite check (untouched lines copied raw): " + (ok ? "ok" : "FAILED"));
+    }
+
+    private static void verifyMapped(Path file, int players) {
+        JSONDatabase database = new JSONDatabase(file, 60_000, "mapped");
+        database.savePlayerData("newcomer", new JSONDatabase.PlayerData());
+        database.deletePlayer("player3");
+        database.close();
+
+        database = new JSONDatabase(file, 60_000, "mapped");
+        Set<String> names = database.getAllPlayerNames();
+        database.deletePlayer("newcomer");
+        database.close();
+
+        database = new JSONDatabase(file, 60_000, "mapped");
+        Set<String> reopened = database.getAllPlayerNames();
+        database.close();
+        boolean ok = names.size() == players && names.contains("newcomer") && !names.contains("player3")
+                && reopened.size() == players - 1 && !reopened.contains("newcomer");
+        System.out.println("Mapped name list check (appended across reopen): " + (ok ? "ok" : "FAILED"));
+    }
+
+    private static void writeTextDatabase(Path file, int players) throws IOException {
+        StringBuilder text = new StringBuilder("# Player Database\n\n");
+        for (int i = 0; i < players; i++) {
+            text.append("PLAYER:player").append(i).append('|').append(i).append("|1|").append(i % 100)
+                    .append("|Feather:").append(i % 7).append(",Coin:").append(i % 13).append('\n');
+        }
+        Files.writeString(file, text);
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import server.Connection;
+import server.OutboundQueue;
+
+class DiscardingConnection implements Connection {
+    private final String playerId;
+    private final boolean binary;
+    private final OutboundQueue outbound = new OutboundQueue();
+    volatile int lastSnapshotSeq = -1;
+
+    DiscardingConnection(String playerId, boolean binary) {
+        this.playerId = playerId;
+        this.binary = binary;
+    }
+
+    @Override
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    @Override
+    public void send(String msg) {
+    }
+
+    @Override
+    public void sendBytes(byte[] data) {
+    }
+
+    @Override
+    public void sendSnapshot(byte[] data) {
+        if (binary) {
+            lastSnapshotSeq = ByteBuffer.wrap(data).getInt(5);
+        } else if (data.length > 5 && data[0] == 'S') {
+            String header = new String(data, 0, Math.min(data.length, 24), StandardCharsets.UTF_8);
+            int end = header.indexOf(':', 5);
+            if (end > 0) {
+                lastSnapshotSeq = Integer.parseInt(header.substring(5, end));
+            }
+        }
+    }
+
+    @Override
+    public OutboundQueue getOutbound() {
+        return outbound;
+    }
+
+    @Override
+    public void close() {
+    }
+}
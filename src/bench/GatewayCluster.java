@@ -0,0 +1,66 @@
+package bench;
+
+import common.GameConfig;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import server.Gateway;
+import server.ServerOptions;
+
+public class GatewayCluster {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ServerOptions options = new ServerOptions(args);
+        int count = Math.max(1, options.getInt("backends", 2));
+        int basePort = options.getInt("base-port", GameConfig.PORT + 10);
+        String core = options.get("core", "blocking");
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        List<Process> processes = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> processes.forEach(Process::destroy)));
+
+        CountDownLatch started = new CountDownLatch(count);
+        StringBuilder backends = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int port = basePort + i;
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "server.GameServer",
+                    "--gateway", "--jmx=false", "--port=" + port, "--core=" + core, "--tick-stats=" + options.getInt("tick-stats", 0),
+                    "--player-store=" + options.get("player-store", "player_data-backend-" + i + ".txt"));
+            builder.redirectErrorStream(true);
+            Process process = builder.start();
+            processes.add(process);
+            pipeOutput("backend-" + i, process, started);
+            if (backends.length() > 0) backends.append(',');
+            backends.append(port);
+            System.out.println("Started backend " + i + " on " + port + " (pid " + processes.get(i).pid() + ")");
+        }
+        if (!started.await(10, TimeUnit.SECONDS)) {
+            System.out.println("Not all backends reported startup, starting the gateway anyway");
+        }
+
+        Gateway.main(new String[] {
+            "--backends=" + backends, "--port=" + options.getInt("port", GameConfig.PORT), "--stats=" + options.getInt("stats", 5)
+        });
+    }
+
+    private static void pipeOutput(String name, Process process, CountDownLatch started) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    System.out.println("[" + name + "] " + line);
+                    if (line.startsWith("Server started on")) {
+                        started.countDown();
+                    }
+                }
+            } catch (IOException ignored) {
+            }
+        }, name + "-output");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,155 @@
+package bench;
+
+import common.BinaryProtocol;
+import common.Chicken;
+import common.GameConfig;
+import common.Player;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import server.ClientSession;
+import server.ServerOptions;
+import server.ServerProtocol;
+
+public class HotPathBench {
+    private static final String[] DIRECTIONS = { "up", "down", "left", "right" };
+    private static final int DISTANCE_BATCH = 1024;
+
+    public static void main(String[] args) {
+        ServerOptions options = new ServerOptions(args);
+        Microbench bench = new Microbench(options.get("filter", ""), options.getInt("warmup-ms", 1000),
+                options.getInt("iteration-ms", 500), options.getInt("iterations", 5));
+
+        codecs(bench);
+        distances(bench);
+        for (int count : new int[] { 10, 100, 1000, 10000 }) {
+            chickenCollision(bench, count);
+        }
+        for (String mode : new String[] { "legacy", "text", "binary" }) {
+            for (int count : new int[] { 10, 100, 1000 }) {
+                broadcast(bench, mode, count);
+            }
+        }
+    }
+
+    private static void codecs(Microbench bench) {
+        Player player = new Player("P54321", 812, 790);
+        player.state = "run";
+        player.money = 125;
+        player.entityId = 17;
+        String playerText = player.toString();
+        Chicken chicken = new Chicken(640, 702);
+        chicken.entityId = 3;
+        String chickenText = chicken.toString();
+
+        bench.run("codec.Player.toString", player::toString);
+        bench.run("codec.Player.fromString", () -> Player.fromString(playerText));
+        bench.run("codec.Chicken.toString", chicken::toString);
+        bench.run("codec.Chicken.fromString", () -> Chicken.fromString(chickenText));
+    }
+
+    private static void distances(Microbench bench) {
+        Random random = new Random(42);
+        int[] coords = new int[DISTANCE_BATCH * 4];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = random.nextInt(GameConfig.MAP_WIDTH);
+        }
+
+        bench.run("distance.calculateTopDownDistance", DISTANCE_BATCH, () -> {
+            long sum = 0;
+            for (int i = 0; i < coords.length; i += 4) {
+                sum += GameConfig.calculateTopDownDistance(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]);
+            }
+            return sum;
+        });
+        bench.run("distance.calculatePreciseDistance", DISTANCE_BATCH, () -> {
+            double sum = 0;
+            for (int i = 0; i < coords.length; i += 4) {
+                sum += GameConfig.calculatePreciseDistance(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]);
+            }
+            return sum;
+        });
+        bench.run("distance.calculateTopDownScreenDistance", DISTANCE_BATCH, () -> {
+            double sum = 0;
+            for (int i = 0; i < coords.length; i += 4) {
+                sum += GameConfig.calculateTopDownScreenDistance(coords[i], coords[i + 1], coords[i + 2], coords[i + 3], 2.0f);
+            }
+            return sum;
+        });
+    }
+
+    private static void chickenCollision(Microbench bench, int count) {
+        String name = "collision.chickenUpdate chickens=" + count;
+        if (!bench.matches(name)) return;
+
+        Random random = new Random(42);
+        List<Chicken> chickens = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Chicken chicken = new Chicken(random.nextInt(GameConfig.MAP_WIDTH - GameConfig.CHICKEN_SIZE),
+                    random.nextInt(GameConfig.MAP_HEIGHT - GameConfig.CHICKEN_SIZE));
+            chicken.entityId = i;
+            chickens.add(chicken);
+        }
+        bench.run(name, count, () -> {
+            for (Chicken chicken : chickens) {
+                chicken.update(chickens);
+            }
+            return chickens;
+        });
+    }
+
+    private static void broadcast(Microbench bench, String mode, int count) {
+        String name = "broadcast.tick " + mode + " players=" + count;
+        if (!bench.matches(name)) return;
+
+        List<Chicken> chickens = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < GameConfig.CHICKEN_COUNT; i++) {
+            chickens.add(new Chicken(700 + random.nextInt(200), 740 + random.nextInt(200)));
+        }
+        ServerProtocol protocol = new ServerProtocol(new HashMap<>(), new ArrayList<>(), chickens);
+        List<ClientSession> sessions = new ArrayList<>();
+        List<DiscardingConnection> connections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DiscardingConnection connection = new DiscardingConnection("B" + i, mode.equals("binary"));
+            ClientSession session = protocol.onConnect(connection);
+            if (mode.equals("binary")) {
+                protocol.onHello(session, BinaryProtocol.HELLO_BINARY);
+            } else if (mode.equals("text")) {
+                protocol.onMessage(session, "SNAPSHOTS:DELTA");
+            }
+            sessions.add(session);
+            connections.add(connection);
+        }
+        protocol.tick();
+
+        int[] ticks = { 0 };
+        int[] inputSeq = new int[count];
+        bench.run(name, () -> {
+            int tick = ticks[0]++;
+            for (int i = 0; i < count; i++) {
+                ClientSession session = sessions.get(i);
+                if ((tick + i) % 60 == 0) {
+                    String direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                    if (mode.equals("binary")) {
+                        protocol.onFrame(session, ByteBuffer.wrap(BinaryProtocol.encodeInput(++inputSeq[i], direction), 4, 6).slice());
+                    } else {
+                        protocol.onMessage(session, "INPUT:" + ++inputSeq[i] + ":" + direction);
+                    }
+                }
+                int ack = connections.get(i).lastSnapshotSeq;
+                if (ack >= 0 && !mode.equals("legacy")) {
+                    if (mode.equals("binary")) {
+                        protocol.onFrame(session, ByteBuffer.wrap(BinaryProtocol.encodeInt(BinaryProtocol.OP_ACK, ack), 4, 5).slice());
+                    } else {
+                        protocol.onMessage(session, "ACK:" + ack);
+                    }
+                }
+            }
+            protocol.tick();
+            return protocol.getWorld();
+        });
+    }
+}
@@ -0,0 +1,340 @@
+package bench;
+
+import common.BinaryProtocol;
+import common.Chicken;
+import common.GameConfig;
+import common.Player;
+import common.SnapshotCodec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+class LoadBot {
+    private static final String[] DIRECTIONS = { "up", "down", "left", "right" };
+    private static final int MAX_BUFFER = 8 * 1024 * 1024;
+    private static final int INPUT_WINDOW = 64;
+    private static final int ATTACK_REACH = GameConfig.ATTACK_RANGE + GameConfig.PLAYER_SIZE;
+
+    private final LoadScript script;
+    private final LoadStats stats;
+    private final ArrayDeque<ByteBuffer> writes = new ArrayDeque<>();
+    private final Map<Integer, Map<String, ?>> history = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, ?>> eldest) {
+            return size() > GameConfig.SNAPSHOT_HISTORY;
+        }
+    };
+    private final long[] inputSentAt = new long[INPUT_WINDOW];
+    SocketChannel channel;
+    SelectionKey key;
+    private ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+    private boolean handshaken = false;
+    private boolean binary = false;
+    private boolean connected = false;
+    private boolean closed = false;
+    private String playerId;
+    private Map<String, ?> latest;
+    private int lastAckSent = SnapshotCodec.KEYFRAME;
+    private int inputSeq = 0;
+    private int lastInputAcked = 0;
+    private String direction = null;
+    private long lastSnapshotAt = 0;
+    private long nextMove, nextAttack, nextChicken;
+
+    LoadBot(LoadScript script, LoadStats stats) {
+        this.script = script;
+        this.stats = stats;
+    }
+
+    void onConnected(long now) {
+        connected = true;
+        stats.connected.increment();
+        nextMove = now + script.nextMoveDelay();
+        nextAttack = now + script.nextAttackDelay();
+        nextChicken = now + script.nextChickenDelay();
+        if (script.room != null) {
+            sendLine("ROOM:" + script.room);
+        }
+        sendLine(script.binary ? BinaryProtocol.HELLO_BINARY : BinaryProtocol.HELLO_TEXT);
+    }
+
+    void onReadable() throws IOException {
+        int read;
+        while ((read = channel.read(in)) > 0) {
+            stats.bytesIn.add(read);
+            in.flip();
+            while (binary ? readFrame() : readLine()) {
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                if (in.capacity() >= MAX_BUFFER) throw new IOException("Message too long");
+                ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                grown.put(in);
+                in = grown;
+            }
+        }
+        if (read < 0) {
+            throw new IOException("Server closed connection");
+        }
+    }
+
+    private boolean readLine() {
+        int start = in.position();
+        for (int i = start; i < in.limit(); i++) {
+            if (in.get(i) != '\n') continue;
+
+            String line = new String(in.array(), start, i - start, StandardCharsets.UTF_8);
+            in.position(i + 1);
+            handleLine(line);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean readFrame() {
+        if (in.remaining() < 4) return false;
+        int length = in.getInt(in.position());
+        if (in.remaining() < 4 + length) return false;
+
+        ByteBuffer frame = ByteBuffer.wrap(in.array(), in.position() + 4, length).slice();
+        in.position(in.position() + 4 + length);
+        if (frame.get() == BinaryProtocol.OP_SNAPSHOT) {
+            handleBinarySnapshot(frame);
+        }
+        return true;
+    }
+
+    private void handleLine(String line) {
+        if (line.startsWith("ID:")) {
+            playerId = line.substring(3);
+        } else if (line.startsWith("HELLO:")) {
+            handshaken = true;
+            binary = line.equals(BinaryProtocol.HELLO_BINARY);
+            if (!binary && script.delta) {
+                sendLine("SNAPSHOTS:DELTA");
+            }
+        } else if (line.startsWith("SNAP:")) {
+            handleTextSnapshot(line);
+        } else if (line.startsWith("PLAYERS:")) {
+            afterSnapshot(-1, 0, false);
+        }
+    }
+
+    private void handleBinarySnapshot(ByteBuffer frame) {
+        int seq = frame.getInt();
+        int baseSeq = frame.getInt();
+        int inputAck = frame.getInt();
+        @SuppressWarnings("unchecked")
+        Map<String, byte[]> base = (Map<String, byte[]>) history.get(baseSeq);
+        if (baseSeq != SnapshotCodec.KEYFRAME && base == null) {
+            resync();
+            return;
+        }
+        boolean changed = frame.remaining() > 4;
+        Map<String, byte[]> snapshot = BinaryProtocol.applySnapshot(base, frame);
+        history.put(seq, snapshot);
+        latest = snapshot;
+        afterSnapshot(seq, inputAck, changed);
+    }
+
+    private void handleTextSnapshot(String line) {
+        String[] header = line.split(":", 5);
+        int seq = Integer.parseInt(header[1]);
+        int baseSeq = Integer.parseInt(header[2]);
+        @SuppressWarnings("unchecked")
+        Map<String, String[]> base = (Map<String, String[]>) history.get(baseSeq);
+        if (baseSeq != SnapshotCodec.KEYFRAME && base == null) {
+            resync();
+            return;
+        }
+        Map<String, String[]> snapshot = SnapshotCodec.apply(base, header[4]);
+        history.put(seq, snapshot);
+        latest = snapshot;
+        afterSnapshot(seq, Integer.parseInt(header[3]), !header[4].isEmpty());
+    }
+
+    private void resync() {
+        stats.resyncs.increment();
+        sendAck(SnapshotCodec.KEYFRAME);
+    }
+
+    private void afterSnapshot(int seq, int inputAck, boolean changed) {
+        long now = System.nanoTime();
+        stats.snapshots.increment();
+        if (lastSnapshotAt != 0) {
+            stats.snapshotInterval.record(now - lastSnapshotAt);
+        }
+        lastSnapshotAt = now;
+
+        for (int s = Math.max(lastInputAcked + 1, inputSeq - INPUT_WINDOW + 1); s <= Math.min(inputAck, inputSeq); s++) {
+            stats.inputLatency.record(now - inputSentAt[s % INPUT_WINDOW]);
+        }
+        lastInputAcked = Math.max(lastInputAcked, inputAck);
+
+        if (seq >= 0 && (changed || lastAckSent == SnapshotCodec.KEYFRAME || seq - lastAckSent >= GameConfig.SNAPSHOT_HISTORY / 2)) {
+            sendAck(seq);
+        }
+    }
+
+    void act(long now) {
+        if (!handshaken || closed) return;
+
+        if (script.moveMillis > 0 && now >= nextMove) {
+            nextMove = now + script.nextMoveDelay();
+            String next = ThreadLocalRandom.current().nextInt(5) == 0 ? null : DIRECTIONS[ThreadLocalRandom.current().nextInt(DIRECTIONS.length)];
+            if (next == null ? direction != null : !next.equals(direction)) {
+                direction = next;
+                sendInput(now);
+            }
+        }
+        if (script.attackMillis > 0 && now >= nextAttack) {
+            nextAttack = now + script.nextAttackDelay();
+            stats.attacks.increment();
+            if (binary) {
+                sendBytes(BinaryProtocol.encodeSimple(BinaryProtocol.OP_ATTACK));
+            } else {
+                sendLine("ATTACK");
+            }
+        }
+        if (script.chickenMillis > 0 && now >= nextChicken) {
+            nextChicken = now + script.nextChickenDelay();
+            hitNearestChicken();
+        }
+    }
+
+    private void sendInput(long now) {
+        inputSeq++;
+        inputSentAt[inputSeq % INPUT_WINDOW] = now;
+        stats.inputs.increment();
+        if (binary) {
+            sendBytes(BinaryProtocol.encodeInput(inputSeq, direction));
+        } else {
+            sendLine("INPUT:" + inputSeq + ":" + (direction != null ? direction : "none"));
+        }
+    }
+
+    private void hitNearestChicken() {
+        if (latest == null) return;
+
+        Player self = null;
+        Chicken nearest = null;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (Map.Entry<String, ?> entry : latest.entrySet()) {
+            if (entry.getKey().startsWith(SnapshotCodec.PLAYER_PREFIX) && self == null) {
+                Player player = decodePlayer(entry.getValue());
+                if (player.id.equals(playerId)) {
+                    self = player;
+                }
+            }
+        }
+        if (self == null) return;
+
+        for (Map.Entry<String, ?> entry : latest.entrySet()) {
+            if (!entry.getKey().startsWith(SnapshotCodec.CHICKEN_PREFIX)) continue;
+
+            Chicken chicken = decodeChicken(entry.getValue());
+            if (!chicken.canBeAttacked()) continue;
+            int distance = GameConfig.calculateTopDownDistance(
+                    self.x + GameConfig.PLAYER_SIZE / 2, self.y + GameConfig.PLAYER_SIZE / 2,
+                    chicken.x + GameConfig.CHICKEN_SIZE / 2, chicken.y + GameConfig.CHICKEN_SIZE / 2);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = chicken;
+            }
+        }
+        if (nearest == null || nearestDistance > ATTACK_REACH) {
+            stats.chickenOutOfReach.increment();
+            return;
+        }
+
+        stats.chickenHits.increment();
+        if (binary) {
+            sendBytes(BinaryProtocol.encodeChickenAttack(nearest.entityId));
+        } else {
+            sendLine("CHICKEN_ATTACK:" + nearest.entityId);
+        }
+    }
+
+    private Player decodePlayer(Object record) {
+        if (record instanceof byte[] bytes) {
+            return BinaryProtocol.readPlayer(ByteBuffer.wrap(bytes));
+        }
+        return Player.fromString(String.join(",", (String[]) record));
+    }
+
+    private Chicken decodeChicken(Object record) {
+        if (record instanceof byte[] bytes) {
+            return BinaryProtocol.readChicken(ByteBuffer.wrap(bytes));
+        }
+        return Chicken.fromString(String.join(",", (String[]) record));
+    }
+
+    private void sendAck(int seq) {
+        lastAckSent = seq;
+        if (binary) {
+            sendBytes(BinaryProtocol.encodeInt(BinaryProtocol.OP_ACK, seq));
+        } else {
+            sendLine("ACK:" + seq);
+        }
+    }
+
+    private void sendLine(String line) {
+        sendBytes((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void sendBytes(byte[] data) {
+        if (closed) return;
+
+        writes.add(ByteBuffer.wrap(data));
+        stats.bytesOut.add(data.length);
+        try {
+            onWritable();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    void onWritable() throws IOException {
+        while (!writes.isEmpty()) {
+            ByteBuffer head = writes.peek();
+            channel.write(head);
+            if (head.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            writes.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    boolean isConnected() {
+        return connected;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        if (closed) return;
+
+        closed = true;
+        if (connected) {
+            stats.disconnects.increment();
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
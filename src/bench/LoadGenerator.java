@@ -0,0 +1,56 @@
+package bench;
+
+import common.GameConfig;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import server.ServerOptions;
+
+public class LoadGenerator {
+    public static void main(String[] args) throws Exception {
+        ServerOptions options = new ServerOptions(args);
+        InetSocketAddress address = new InetSocketAddress(options.get("host", "localhost"), options.getInt("port", GameConfig.PORT));
+        int bots = options.getInt("bots", 50);
+        int threads = options.getInt("threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        int connectRate = Math.max(1, options.getInt("connect-rate", 500));
+        int durationSeconds = options.getInt("duration", 30);
+        int reportSeconds = Math.max(1, options.getInt("report", 5));
+        LoadScript script = new LoadScript(options);
+        LoadStats stats = new LoadStats();
+
+        System.out.println("Load: " + bots + " bots on " + threads + " threads against " + address
+                + " (" + options.get("protocol", "binary") + ", move " + script.moveMillis + "ms, attack " + script.attackMillis
+                + "ms, chicken " + script.chickenMillis + "ms)");
+
+        List<LoadLoop> loops = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            LoadLoop loop = new LoadLoop(address, stats);
+            loops.add(loop);
+            new Thread(loop, "load-loop-" + i).start();
+        }
+
+        long start = System.nanoTime();
+        long end = start + durationSeconds * 1_000_000_000L;
+        long nextReport = start + reportSeconds * 1_000_000_000L;
+        long connectInterval = 1_000_000_000L / connectRate;
+        int launched = 0;
+        while (System.nanoTime() < end) {
+            long now = System.nanoTime();
+            while (launched < bots && now >= start + launched * connectInterval) {
+                loops.get(launched % threads).connect(new LoadBot(script, stats));
+                launched++;
+            }
+            if (now >= nextReport) {
+                nextReport += reportSeconds * 1_000_000_000L;
+                System.out.println(stats.report(false));
+            }
+            LockSupport.parkNanos(launched < bots ? Math.min(connectInterval, 10_000_000L) : 50_000_000L);
+        }
+
+        System.out.println(stats.report(true));
+        for (LoadLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package bench;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+class LoadLoop implements Runnable {
+    private static final long ACT_INTERVAL_NANOS = 10_000_000L;
+
+    private final Selector selector;
+    private final InetSocketAddress address;
+    private final LoadStats stats;
+    private final Queue<LoadBot> pending = new ConcurrentLinkedQueue<>();
+    private final List<LoadBot> bots = new ArrayList<>();
+    private volatile boolean running = true;
+
+    LoadLoop(InetSocketAddress address, LoadStats stats) throws IOException {
+        this.selector = Selector.open();
+        this.address = address;
+        this.stats = stats;
+    }
+
+    void connect(LoadBot bot) {
+        pending.add(bot);
+        selector.wakeup();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        long nextAct = System.nanoTime();
+        while (running) {
+            try {
+                selector.select(5);
+                openPending();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handle(key);
+                }
+
+                long now = System.nanoTime();
+                if (now >= nextAct) {
+                    nextAct = now + ACT_INTERVAL_NANOS;
+                    for (LoadBot bot : bots) {
+                        bot.act(now);
+                    }
+                    bots.removeIf(LoadBot::isClosed);
+                }
+            } catch (IOException e) {
+                System.out.println("Load loop failed: " + e.getMessage());
+                break;
+            }
+        }
+        for (LoadBot bot : bots) {
+            bot.close();
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void openPending() {
+        LoadBot bot;
+        while ((bot = pending.poll()) != null) {
+            try {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                bot.channel = channel;
+                bot.key = channel.register(selector, SelectionKey.OP_CONNECT, bot);
+                if (channel.connect(address)) {
+                    finishConnect(bot);
+                }
+            } catch (IOException e) {
+                stats.connectFailures.increment();
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        LoadBot bot = (LoadBot) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                bot.channel.finishConnect();
+                finishConnect(bot);
+                return;
+            }
+            if (key.isReadable()) {
+                bot.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                bot.onWritable();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!bot.isConnected()) {
+                stats.connectFailures.increment();
+            }
+            bot.close();
+        }
+    }
+
+    private void finishConnect(LoadBot bot) {
+        bot.key.interestOps(SelectionKey.OP_READ);
+        bots.add(bot);
+        bot.onConnected(System.nanoTime());
+    }
+}
@@ -0,0 +1,40 @@
+package bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import server.ServerOptions;
+
+class LoadScript {
+    final boolean binary;
+    final boolean delta;
+    final long moveMillis;
+    final long attackMillis;
+    final long chickenMillis;
+    final String room;
+
+    LoadScript(ServerOptions options) {
+        String protocol = options.get("protocol", "binary");
+        this.binary = protocol.equals("binary");
+        this.delta = !protocol.equals("legacy");
+        this.moveMillis = options.getInt("move-ms", 1000);
+        this.attackMillis = options.getInt("attack-ms", 3000);
+        this.chickenMillis = options.getInt("chicken-ms", 2000);
+        this.room = options.get("room", null);
+    }
+
+    long nextMoveDelay() {
+        return exponential(moveMillis);
+    }
+
+    long nextAttackDelay() {
+        return exponential(attackMillis);
+    }
+
+    long nextChickenDelay() {
+        return exponential(chickenMillis);
+    }
+
+    private static long exponential(long meanMillis) {
+        if (meanMillis <= 0) return Long.MAX_VALUE / 2;
+        return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanMillis * 1_000_000L);
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import common.LatencyHistogram;
+import java.util.concurrent.atomic.LongAdder;
+
+class LoadStats {
+    final LongAdder connected = new LongAdder();
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder disconnects = new LongAdder();
+    final LongAdder snapshots = new LongAdder();
+    final LongAdder resyncs = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+    final LongAdder inputs = new LongAdder();
+    final LongAdder attacks = new LongAdder();
+    final LongAdder chickenHits = new LongAdder();
+    final LongAdder chickenOutOfReach = new LongAdder();
+    final LatencyHistogram inputLatency = new LatencyHistogram();
+    final LatencyHistogram snapshotInterval = new LatencyHistogram();
+
+    private final LatencyHistogram totalInputLatency = new LatencyHistogram();
+    private final LatencyHistogram totalSnapshotInterval = new LatencyHistogram();
+    private long lastReportAt = System.nanoTime();
+    private long lastSnapshots, lastBytesIn, lastBytesOut, lastInputs;
+
+    String report(boolean total) {
+        long now = System.nanoTime();
+        double seconds = (now - lastReportAt) / 1e9;
+        lastReportAt = now;
+
+        long snapshotCount = snapshots.sum();
+        long in = bytesIn.sum();
+        long out = bytesOut.sum();
+        long inputCount = inputs.sum();
+        long clients = connected.sum() - disconnects.sum();
+
+        LatencyHistogram latency = inputLatency.copyAndReset();
+        LatencyHistogram interval = snapshotInterval.copyAndReset();
+        totalInputLatency.add(latency);
+        totalSnapshotInterval.add(interval);
+
+        StringBuilder sb = new StringBuilder();
+        if (total) {
+            sb.append(String.format("== total: connected=%d failed=%d disconnects=%d snapshots=%d resyncs=%d inputs=%d attacks=%d chicken-hits=%d (out of reach %d) in=%dKB out=%dKB%n",
+                    connected.sum(), connectFailures.sum(), disconnects.sum(), snapshotCount, resyncs.sum(), inputCount,
+                    attacks.sum(), chickenHits.sum(), chickenOutOfReach.sum(), in / 1024, out / 1024));
+            sb.append("   input->snapshot ").append(totalInputLatency.summarize()).append('\n');
+            sb.append("   snapshot interval ").append(totalSnapshotInterval.summarize());
+        } else {
+            double snapshotRate = (snapshotCount - lastSnapshots) / seconds;
+            double inRate = (in - lastBytesIn) / seconds;
+            sb.append(String.format("clients=%d disconnects=%d snapshots/s=%.0f inputs/s=%.0f in=%.0fKB/s out=%.1fKB/s per-client=%.0fB/s%n",
+                    clients, disconnects.sum(), snapshotRate, (inputCount - lastInputs) / seconds, inRate / 1024,
+                    (out - lastBytesOut) / seconds / 1024, clients > 0 ? inRate / clients : 0.0));
+            sb.append("   input->snapshot ").append(latency.summarize()).append('\n');
+            sb.append("   snapshot interval ").append(interval.summarize());
+        }
+        lastSnapshots = snapshotCount;
+        lastBytesIn = in;
+        lastBytesOut = out;
+        lastInputs = inputCount;
+        return sb.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+public class Microbench {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Pattern filter;
+    private final long warmupNanos;
+    private final long iterationNanos;
+    private final int iterations;
+    private volatile int sink;
+
+    public Microbench(String filter, long warmupMillis, long iterationMillis, int iterations) {
+        this.filter = Pattern.compile(filter);
+        this.warmupNanos = warmupMillis * 1_000_000L;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.iterations = iterations;
+        System.out.printf("%-44s %14s %10s %14s %12s%n", "benchmark", "ns/op", "error", "B/op", "MB/s alloc");
+    }
+
+    public boolean matches(String name) {
+        return filter.matcher(name).find();
+    }
+
+    public void run(String name, Supplier<Object> op) {
+        run(name, 1, op);
+    }
+
+    public void run(String name, int operationsPerCall, Supplier<Object> op) {
+        if (!matches(name)) return;
+
+        measure(op, warmupNanos);
+        double[] nanosPerOp = new double[iterations];
+        long allocated = 0;
+        long operations = 0;
+        long elapsed = 0;
+        for (int i = 0; i < iterations; i++) {
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long calls = measure(op, iterationNanos);
+            long took = System.nanoTime() - start;
+            allocated += THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            operations += calls * operationsPerCall;
+            elapsed += took;
+            nanosPerOp[i] = took / (double) (calls * operationsPerCall);
+        }
+
+        double mean = Arrays.stream(nanosPerOp).average().orElse(0);
+        double variance = Arrays.stream(nanosPerOp).map(v -> (v - mean) * (v - mean)).sum() / Math.max(1, iterations - 1);
+        System.out.printf("%-44s %14.1f %10.1f %14.1f %12.1f%n", name, mean, 2 * Math.sqrt(variance / iterations),
+                allocated / (double) operations, allocated / (elapsed / 1e9) / (1024 * 1024));
+    }
+
+    private long measure(Supplier<Object> op, long durationNanos) {
+        long deadline = System.nanoTime() + durationNanos;
+        long calls = 0;
+        int hash = 0;
+        do {
+            Object result = op.get();
+            hash += System.identityHashCode(result);
+            calls++;
+        } while (System.nanoTime() < deadline);
+        sink += hash;
+        return calls;
+    }
+}
@@ -0,0 +1,152 @@
+package bench;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class UdpImpairment implements Runnable {
+    private final DatagramChannel front;
+    private final InetSocketAddress target;
+    private final double loss;
+    private final int delayMs;
+    private final int jitterMs;
+    private final Random random = new Random();
+    private final Map<SocketAddress, DatagramChannel> upstreams = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "udp-impairment-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public UdpImpairment(int listenPort, InetSocketAddress target, double lossPercent, int delayMs, int jitterMs) throws IOException {
+        this.front = DatagramChannel.open();
+        this.front.bind(new InetSocketAddress("localhost", listenPort));
+        this.target = target;
+        this.loss = lossPercent / 100.0;
+        this.delayMs = delayMs;
+        this.jitterMs = jitterMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: UdpImpairment <listen-port> <server-udp-port> [loss-percent] [delay-ms] [jitter-ms]");
+            return;
+        }
+        UdpImpairment impairment = new UdpImpairment(Integer.parseInt(args[0]),
+                new InetSocketAddress("localhost", Integer.parseInt(args[1])),
+                args.length > 2 ? Double.parseDouble(args[2]) : 0,
+                args.length > 3 ? Integer.parseInt(args[3]) : 0,
+                args.length > 4 ? Integer.parseInt(args[4]) : 0);
+        impairment.start();
+        System.out.println("Relaying UDP " + impairment.getPort() + " -> " + args[1] + ", start the client with -Dclient.udp=true -Dclient.udpPort=" + impairment.getPort());
+        while (true) {
+            Thread.sleep(5000);
+            System.out.println(impairment.summarize());
+        }
+    }
+
+    public void start() {
+        Thread thread = new Thread(this, "udp-impairment");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) front.getLocalAddress()).getPort();
+    }
+
+    public String summarize() {
+        return "forwarded=" + forwarded.get() + ", dropped=" + dropped.get();
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (front.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress client = front.receive(buffer);
+                buffer.flip();
+                DatagramChannel upstream = upstreams.computeIfAbsent(client, this::openUpstream);
+                if (upstream != null) {
+                    relay(buffer, upstream, null);
+                }
+            } catch (IOException e) {
+                break;
+            }
+        }
+    }
+
+    private DatagramChannel openUpstream(SocketAddress client) {
+        try {
+            DatagramChannel upstream = DatagramChannel.open();
+            upstream.connect(target);
+            Thread thread = new Thread(() -> relayBack(upstream, client), "udp-impairment-" + client);
+            thread.setDaemon(true);
+            thread.start();
+            return upstream;
+        } catch (IOException e) {
+            System.out.println("Could not open upstream for " + client + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void relayBack(DatagramChannel upstream, SocketAddress client) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (upstream.isOpen()) {
+            try {
+                buffer.clear();
+                upstream.read(buffer);
+                buffer.flip();
+                relay(buffer, front, client);
+            } catch (PortUnreachableException e) {
+            } catch (IOException e) {
+                break;
+            }
+        }
+    }
+
+    private void relay(ByteBuffer datagram, DatagramChannel channel, SocketAddress to) {
+        if (random.nextDouble() < loss) {
+            dropped.incrementAndGet();
+            return;
+        }
+        ByteBuffer copy = ByteBuffer.allocate(datagram.remaining());
+        copy.put(datagram).flip();
+        long delay = delayMs + (jitterMs > 0 ? random.nextInt(jitterMs + 1) : 0);
+        scheduler.schedule(() -> {
+            try {
+                if (to != null) {
+                    channel.send(copy, to);
+                } else {
+                    channel.write(copy);
+                }
+                forwarded.incrementAndGet();
+            } catch (IOException ignored) {
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            front.close();
+            for (DatagramChannel upstream : upstreams.values()) {
+                upstream.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+}
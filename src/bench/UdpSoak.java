@@ -0,0 +1,162 @@
+package bench;
+
+import client.UdpLink;
+import common.BinaryProtocol;
+import common.GameConfig;
+import common.SnapshotCodec;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class UdpSoak {
+    private static final String[] DIRECTIONS = { "up", "right", "down", "left" };
+
+    private final Map<Integer, Map<String, byte[]>> history = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, byte[]>> eldest) {
+            return size() > GameConfig.SNAPSHOT_HISTORY;
+        }
+    };
+    private UdpLink udp;
+    private OutputStream out;
+    private int lastSeq = -1;
+    private int lastAckSent = SnapshotCodec.KEYFRAME;
+    private volatile int lastProcessedInput = 0;
+    private long snapshots = 0;
+    private long resyncs = 0;
+    private long tcpSnapshots = 0;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        double loss = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        int delay = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+        int jitter = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        new UdpSoak().run(host, seconds, loss, delay, jitter);
+    }
+
+    private void run(String host, int seconds, double loss, int delay, int jitter) throws Exception {
+        try (Socket socket = new Socket(host, GameConfig.PORT)) {
+            out = socket.getOutputStream();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out.write((BinaryProtocol.HELLO_BINARY + "\n").getBytes(StandardCharsets.UTF_8));
+
+            String offer = null;
+            String line;
+            while ((line = BinaryProtocol.readLine(in)) != null && !line.startsWith("HELLO:")) {
+                if (line.startsWith("UDP:")) {
+                    offer = line.substring(4);
+                }
+            }
+            if (offer == null || !BinaryProtocol.HELLO_BINARY.equals(line)) {
+                System.out.println("Server did not offer UDP on a binary session, start it with --udp=true");
+                return;
+            }
+
+            String[] parts = offer.split(":");
+            UdpImpairment impairment = new UdpImpairment(0, new InetSocketAddress(host, Integer.parseInt(parts[0])), loss, delay, jitter);
+            impairment.start();
+            udp = new UdpLink(new InetSocketAddress("localhost", impairment.getPort()), Long.parseLong(parts[1]), this::onSnapshot);
+            udp.start();
+
+            Thread tcp = new Thread(() -> {
+                try {
+                    while (true) {
+                        ByteBuffer frame = BinaryProtocol.readFrame(in);
+                        synchronized (this) {
+                            tcpSnapshots++;
+                        }
+                        onSnapshot(frame);
+                    }
+                } catch (Exception ignored) {
+                }
+            }, "soak-tcp");
+            tcp.setDaemon(true);
+            tcp.start();
+
+            long inputLatencyTotal = 0;
+            int inputsAcked = 0;
+            int inputSeq = 0;
+            long end = System.currentTimeMillis() + seconds * 1000L;
+            while (System.currentTimeMillis() < end) {
+                inputSeq++;
+                String direction = DIRECTIONS[inputSeq % DIRECTIONS.length];
+                long sent = System.nanoTime();
+                long resend = sent;
+                while (lastProcessedInput < inputSeq && System.nanoTime() - sent < 2_000_000_000L) {
+                    if (System.nanoTime() >= resend) {
+                        send(BinaryProtocol.encodeInput(inputSeq, direction));
+                        resend = System.nanoTime() + 50_000_000L;
+                    }
+                    Thread.sleep(5);
+                }
+                if (lastProcessedInput >= inputSeq) {
+                    inputLatencyTotal += System.nanoTime() - sent;
+                    inputsAcked++;
+                }
+                Thread.sleep(500);
+            }
+
+            synchronized (this) {
+                System.out.printf("loss=%.1f%% delay=%dms jitter=%dms%n", loss, delay, jitter);
+                System.out.println("datagrams: " + udp.getReceived() + ", relay " + impairment.summarize());
+                System.out.println("snapshots applied=" + snapshots + " keyframe resyncs=" + resyncs + " via tcp=" + tcpSnapshots);
+                System.out.printf("inputs acked=%d/%d avg input->ack %.1f ms%n", inputsAcked, inputSeq,
+                        inputsAcked > 0 ? inputLatencyTotal / (double) inputsAcked / 1e6 : 0.0);
+            }
+            udp.close();
+            impairment.close();
+        }
+    }
+
+    private void send(byte[] frame) {
+        if (udp.isActive()) {
+            udp.send(frame);
+            return;
+        }
+        synchronized (out) {
+            try {
+                out.write(frame);
+            } catch (IOException e) {
+                System.out.println("TCP send failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void onSnapshot(ByteBuffer frame) {
+        if (frame.get() != BinaryProtocol.OP_SNAPSHOT) return;
+        int seq = frame.getInt();
+        if (seq <= lastSeq) return;
+        lastSeq = seq;
+
+        int baseSeq = frame.getInt();
+        lastProcessedInput = frame.getInt();
+        Map<String, byte[]> base = null;
+        if (baseSeq != SnapshotCodec.KEYFRAME) {
+            base = history.get(baseSeq);
+            if (base == null) {
+                resyncs++;
+                ack(SnapshotCodec.KEYFRAME);
+                return;
+            }
+        }
+        boolean changed = frame.remaining() > 4;
+        history.put(seq, BinaryProtocol.applySnapshot(base, frame));
+        snapshots++;
+        if (changed || lastAckSent == SnapshotCodec.KEYFRAME || seq - lastAckSent >= GameConfig.SNAPSHOT_HISTORY / 2) {
+            ack(seq);
+        }
+    }
+
+    private void ack(int seq) {
+        lastAckSent = seq;
+        send(BinaryProtocol.encodeInt(BinaryProtocol.OP_ACK, seq));
+    }
+}
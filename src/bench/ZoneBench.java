@@ -0,0 +1,83 @@
+package bench;
+
+import common.BinaryProtocol;
+import common.Chicken;
+import common.GameConfig;
+import common.LatencyHistogram;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import server.ClientSession;
+import server.ServerOptions;
+import server.ServerProtocol;
+
+public class ZoneBench {
+    private static final String[] DIRECTIONS = { "up", "down", "left", "right" };
+
+    public static void main(String[] args) {
+        ServerOptions options = new ServerOptions(args);
+        int players = options.getInt("players", 500);
+        int chickens = options.getInt("chickens", 4000);
+        int warmupTicks = options.getInt("warmup", 200);
+        int ticks = options.getInt("ticks", 300);
+        String[] layouts = options.get("layouts", "1x1,2x1,2x2,3x3,4x4").split(",");
+
+        System.out.println("Zone bench: " + players + " binary players, " + chickens + " chickens, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        System.out.printf("%-8s %10s %10s %10s %10s%n", "zones", "mean ms", "p50 ms", "p99 ms", "max ms");
+        for (String layout : layouts) {
+            String[] parts = layout.split("x");
+            run(layout, Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), players, chickens, warmupTicks, ticks);
+        }
+    }
+
+    private static void run(String layout, int columns, int rows, int playerCount, int chickenCount, int warmupTicks, int ticks) {
+        Random random = new Random(42);
+        List<Chicken> chickens = new ArrayList<>();
+        for (int i = 0; i < chickenCount; i++) {
+            chickens.add(new Chicken(random.nextInt(GameConfig.MAP_WIDTH - GameConfig.CHICKEN_SIZE),
+                    random.nextInt(GameConfig.MAP_HEIGHT - GameConfig.CHICKEN_SIZE)));
+        }
+        ServerProtocol protocol = new ServerProtocol(new HashMap<>(), new ArrayList<>(), chickens);
+        protocol.setZones(columns, rows);
+
+        List<ClientSession> sessions = new ArrayList<>();
+        List<DiscardingConnection> connections = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) {
+            DiscardingConnection connection = new DiscardingConnection("Z" + i, true);
+            ClientSession session = protocol.onConnect(connection);
+            protocol.onHello(session, BinaryProtocol.HELLO_BINARY);
+            session.player.x = random.nextInt(GameConfig.MAP_WIDTH - GameConfig.PLAYER_SIZE);
+            session.player.y = random.nextInt(GameConfig.MAP_HEIGHT - GameConfig.PLAYER_SIZE);
+            sessions.add(session);
+            connections.add(connection);
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        int[] inputSeq = new int[playerCount];
+        for (int tick = 0; tick < warmupTicks + ticks; tick++) {
+            for (int i = 0; i < playerCount; i++) {
+                if ((tick + i) % 60 == 0) {
+                    String direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                    protocol.onFrame(sessions.get(i), ByteBuffer.wrap(BinaryProtocol.encodeInput(++inputSeq[i], direction), 4, 6).slice());
+                }
+                int ack = connections.get(i).lastSnapshotSeq;
+                if (ack >= 0) {
+                    protocol.onFrame(sessions.get(i), ByteBuffer.wrap(BinaryProtocol.encodeInt(BinaryProtocol.OP_ACK, ack), 4, 5).slice());
+                }
+            }
+            long start = System.nanoTime();
+            protocol.tick();
+            if (tick >= warmupTicks) {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+        protocol.setZones(1, 1);
+        protocol.tick();
+
+        System.out.printf("%-8s %10.2f %10.2f %10.2f %10.2f%n", layout, histogram.getMeanMicros() / 1000.0,
+                histogram.percentileMicros(0.50) / 1000.0, histogram.percentileMicros(0.99) / 1000.0, histogram.getMaxMicros() / 1000.0);
+    }
+}
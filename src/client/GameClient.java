@@ -1,17 +1,23 @@
 package client;
 
+import common.BinaryProtocol;
+import common.Chicken;
 import common.GameConfig;
 import common.Player;
+import common.SnapshotCodec;
 import java.awt.event.*;
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import javax.swing.*;
 
 public class GameClient extends JFrame {
     private Socket socket;
-    private PrintWriter out;
-    private BufferedReader in;
+    private OutputStream out;
+    private DataInputStream in;
+    private boolean binary = false;
     private String playerId;
     private Map<String, Player> players = new HashMap<>();
     private GamePanel panel;
@@ -20,8 +26,39 @@ public class GameClient extends JFrame {
     private boolean aPressed = false;
     private boolean dPressed = false;
     private javax.swing.Timer gameTimer;
+    private final Map<Integer, Map<String, String[]>> snapshotHistory = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, String[]>> eldest) {
+            return size() > GameConfig.SNAPSHOT_HISTORY;
+        }
+    };
+    private Map<String, String[]> lastSnapshot;
+    private final Map<Integer, Map<String, byte[]>> binaryHistory = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, byte[]>> eldest) {
+            return size() > GameConfig.SNAPSHOT_HISTORY;
+        }
+    };
+    private Map<String, byte[]> lastBinarySnapshot;
+    private int lastAckSent = SnapshotCodec.KEYFRAME;
+    private int inputSeq = 0;
+    private String sentDirection = null;
+    private int lastProcessedInput = 0;
+    private final PlayerPredictor predictor = new PlayerPredictor();
+    private final InterpolationBuffer interpolation = new InterpolationBuffer();
+    private static final long INPUT_RESEND_NANOS = 50_000_000L;
+    private String udpOffer;
+    private UdpLink udp;
+    private long lastInputSentAt = 0;
+    private int lastBinarySeq = -1;
+    private final String playerName;
 
     public GameClient() throws IOException {
+        this(null);
+    }
+
+    public GameClient(String playerName) throws IOException {
+        this.playerName = playerName;
         setTitle("2D Online Game");
         setExtendedState(JFrame.MAXIMIZED_BOTH);
    /*     setUndecorated(true);
@@ -31,14 +68,17 @@ public class GameClient extends JFrame {
 
 
         socket = new Socket("localhost", GameConfig.PORT);
-        out = new PrintWriter(socket.getOutputStream(), true);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        out = socket.getOutputStream();
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
 
         panel = new GamePanel(players, playerId, this);
         panel.setGameClient(this);
         add(panel);
         panel.setFocusable(true);
 
+        negotiateProtocol();
+        openUdpLink();
+
         new Thread(this::listen).start();
         setupControls();
         setupGameTimer();
@@ -97,7 +137,12 @@ public class GameClient extends JFrame {
         MouseListener mouseListener = new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                out.println("ATTACK");
+                predictor.recordAttack(System.nanoTime());
+                if (binary) {
+                    sendFrame(BinaryProtocol.encodeSimple(BinaryProtocol.OP_ATTACK));
+                } else {
+                    sendLine("ATTACK");
+                }
                 panel.showAttackFeedback();
                 panel.requestFocus();
             }
@@ -113,6 +158,7 @@ public class GameClient extends JFrame {
             if (panel.isDisplayable() && panel.isShowing()) {
                 panel.updateGame();
                 handleMovement();
+                interpolate(System.nanoTime());
                 panel.repaint(); 
             }
         });
@@ -120,7 +166,7 @@ public class GameClient extends JFrame {
     }
 
     private void handleMovement() {
-        String direction = "";
+        String direction = null;
 
         if (wPressed) {
             direction = "up";
@@ -132,23 +178,154 @@ public class GameClient extends JFrame {
             direction = "right";
         }
 
-        if (!direction.isEmpty()) {
-            if (canMoveInDirection(direction)) {
-                out.println("MOVE:" + direction);
-                panel.checkPlayerMovement();
-            }
+        if (direction != null && !canMoveInDirection(direction)) {
+            direction = null;
+        }
+        long now = System.nanoTime();
+        predictor.advance(direction, now);
+        applyPrediction();
+        if (Objects.equals(direction, sentDirection)) {
+            resendUnacknowledgedInput(now);
+            return;
+        }
+
+        sentDirection = direction;
+        inputSeq++;
+        predictor.recordInput(inputSeq, direction, now);
+        if (udp != null && udp.isActive()) {
+            udp.send(BinaryProtocol.encodeInput(inputSeq, direction));
+            lastInputSentAt = now;
+        } else if (binary) {
+            sendFrame(BinaryProtocol.encodeInput(inputSeq, direction));
         } else {
-            out.println("STOP");
+            sendLine("INPUT:" + inputSeq + ":" + (direction != null ? direction : "none"));
+        }
+        if (direction != null) {
+            panel.checkPlayerMovement();
+        }
+    }
+
+    private void resendUnacknowledgedInput(long now) {
+        if (udp == null || !udp.isActive() || inputSeq <= lastProcessedInput) return;
+        if (now - lastInputSentAt < INPUT_RESEND_NANOS) return;
+
+        udp.send(BinaryProtocol.encodeInput(inputSeq, sentDirection));
+        lastInputSentAt = now;
+    }
+
+    private void applyPrediction() {
+        synchronized (players) {
+            Player self = players.get(playerId);
+            if (self != null) {
+                predictor.applyTo(self);
+            }
+        }
+    }
+
+    private void interpolate(long now) {
+        synchronized (players) {
+            interpolation.apply(now, players.values(), playerId, panel.getChickens());
         }
+    }
 
+    private void reconcilePrediction() {
+        synchronized (players) {
+            Player self = players.get(playerId);
+            if (self != null) {
+                predictor.reconcile(self, lastProcessedInput, System.nanoTime());
+                predictor.applyTo(self);
+            }
+        }
     }
 
     public void sendMoneyUpdate(int money) {
-        out.println("MONEY:" + money);
+        if (binary) {
+            sendFrame(BinaryProtocol.encodeInt(BinaryProtocol.OP_MONEY, money));
+        } else {
+            sendLine("MONEY:" + money);
+        }
     }
     
-    public void sendChickenAttack(String chickenData) {
-        out.println("CHICKEN_ATTACK:" + chickenData);
+    public void sendChickenAttack(Chicken chicken) {
+        if (binary) {
+            sendFrame(BinaryProtocol.encodeChickenAttack(chicken.entityId));
+        } else {
+            sendLine("CHICKEN_ATTACK:" + (chicken.entityId >= 0 ? String.valueOf(chicken.entityId) : chicken.toString()));
+        }
+    }
+
+    private void acknowledge(int seq, boolean changed) {
+        if (changed || lastAckSent == SnapshotCodec.KEYFRAME || seq - lastAckSent >= GameConfig.SNAPSHOT_HISTORY / 2) {
+            sendAck(seq);
+        }
+    }
+
+    private void sendAck(int seq) {
+        lastAckSent = seq;
+        if (udp != null && udp.isActive()) {
+            udp.send(BinaryProtocol.encodeInt(BinaryProtocol.OP_ACK, seq));
+        } else if (binary) {
+            sendFrame(BinaryProtocol.encodeInt(BinaryProtocol.OP_ACK, seq));
+        } else {
+            sendLine("ACK:" + seq);
+        }
+    }
+
+    private void sendLine(String line) {
+        sendFrame((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void sendFrame(byte[] data) {
+        try {
+            out.write(data);
+        } catch (IOException e) {
+            System.out.println("Error sending to server: " + e.getMessage());
+        }
+    }
+
+    private void negotiateProtocol() throws IOException {
+        String room = System.getProperty("client.room");
+        if (room != null) {
+            sendLine("ROOM:" + room);
+        }
+        if (playerName != null) {
+            sendLine("LOGIN:" + playerName);
+        }
+        sendLine(BinaryProtocol.HELLO_BINARY);
+        socket.setSoTimeout(3000);
+        try {
+            String line;
+            while ((line = BinaryProtocol.readLine(in)) != null) {
+                if (line.equals(BinaryProtocol.HELLO_BINARY)) {
+                    binary = true;
+                    break;
+                } else if (line.startsWith("HELLO:")) {
+                    break;
+                }
+                handleLine(line);
+            }
+        } catch (SocketTimeoutException e) {
+            System.out.println("Server did not answer protocol handshake, using text protocol");
+        } finally {
+            socket.setSoTimeout(0);
+        }
+
+        if (!binary) {
+            sendLine("SNAPSHOTS:DELTA");
+        }
+    }
+
+    private void openUdpLink() {
+        if (!binary || udpOffer == null || !Boolean.getBoolean("client.udp")) return;
+
+        String[] offer = udpOffer.split(":");
+        int port = Integer.getInteger("client.udpPort", Integer.parseInt(offer[0]));
+        try {
+            udp = new UdpLink(new InetSocketAddress(socket.getInetAddress(), port), Long.parseLong(offer[1]), this::handleFrame);
+            udp.start();
+        } catch (IOException e) {
+            System.out.println("Could not open UDP link, snapshots stay on TCP: " + e.getMessage());
+        }
     }
 
     private boolean canMoveInDirection(String direction) {
@@ -179,25 +356,103 @@ public class GameClient extends JFrame {
 
     private void listen() {
         try {
-            String line;
-            while ((line = in.readLine()) != null) {
-                if (line.startsWith("ID:")) {
-                    playerId = line.substring(3);
-                    panel.setPlayerId(playerId);
-                    panel.requestFocus();
-                } else if (line.startsWith("PLAYERS:")) {
-                    updatePlayers(line.substring(8));
-                } else if (line.startsWith("CHICKENS:")) {
-                    updateChickensFromServer(line.substring(9));
-                } else if (line.startsWith("CHICKEN_UPDATE:")) {
-                    updateChickenFromServer(line.substring(15));
+            if (binary) {
+                while (true) {
+                    handleFrame(BinaryProtocol.readFrame(in));
                 }
             }
+
+            String line;
+            while ((line = BinaryProtocol.readLine(in)) != null) {
+                handleLine(line);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private void handleLine(String line) {
+        if (line.startsWith("ID:")) {
+            playerId = line.substring(3);
+            panel.setPlayerId(playerId);
+            panel.requestFocus();
+        } else if (line.startsWith("PLAYERS:")) {
+            updatePlayers(line.substring(8));
+        } else if (line.startsWith("CHICKENS:")) {
+            updateChickensFromServer(line.substring(9));
+        } else if (line.startsWith("CHICKEN_UPDATE:")) {
+            updateChickenFromServer(line.substring(15));
+        } else if (line.startsWith("SNAP:")) {
+            applySnapshot(line);
+        } else if (line.startsWith("UDP:")) {
+            udpOffer = line.substring(4);
+        } else if (line.startsWith("ROOM:")) {
+            System.out.println("Joined room " + line.substring(5));
+        } else if (line.startsWith("PROFILE:")) {
+            panel.applyServerProfile(line.substring(8));
+        }
+    }
+
+    private void handleFrame(ByteBuffer frame) {
+        byte opcode = frame.get();
+        if (opcode == BinaryProtocol.OP_SNAPSHOT) {
+            applyBinarySnapshot(frame);
+        } else if (opcode == BinaryProtocol.OP_PROFILE) {
+            panel.applyServerProfile(BinaryProtocol.decodeProfile(frame));
+        }
+    }
+
+    private void applyBinarySnapshot(ByteBuffer frame) {
+        synchronized (binaryHistory) {
+            int seq = frame.getInt();
+            if (seq <= lastBinarySeq) return;
+
+            lastBinarySeq = seq;
+            applyBinarySnapshot(seq, frame);
+        }
+    }
+
+    private void applyBinarySnapshot(int seq, ByteBuffer frame) {
+        int baseSeq = frame.getInt();
+        lastProcessedInput = frame.getInt();
+
+        Map<String, byte[]> base = null;
+        if (baseSeq != SnapshotCodec.KEYFRAME) {
+            base = binaryHistory.get(baseSeq);
+            if (base == null) {
+                sendAck(SnapshotCodec.KEYFRAME);
+                return;
+            }
+        }
+
+        boolean changed = frame.remaining() > 4;
+        Map<String, byte[]> snapshot = BinaryProtocol.applySnapshot(base, frame);
+        binaryHistory.put(seq, snapshot);
+        acknowledge(seq, changed);
+
+        java.util.List<Chicken> chickens = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (players) {
+            players.clear();
+            for (Map.Entry<String, byte[]> entry : snapshot.entrySet()) {
+                if (entry.getKey().startsWith(SnapshotCodec.PLAYER_PREFIX)) {
+                    Player pl = BinaryProtocol.readPlayer(ByteBuffer.wrap(entry.getValue()));
+                    players.put(pl.id, pl);
+                } else if (entry.getKey().startsWith(SnapshotCodec.CHICKEN_PREFIX)) {
+                    chickens.add(BinaryProtocol.readChicken(ByteBuffer.wrap(entry.getValue())));
+                }
+            }
+            interpolation.record(now, players.values(), playerId, chickens);
+        }
+        reconcilePrediction();
+
+        if (chickensChanged(lastBinarySnapshot, snapshot)) {
+            panel.replaceChickens(chickens);
+        }
+        lastBinarySnapshot = snapshot;
+        interpolate(now);
+    }
+
     private void updatePlayers(String data) {
         synchronized (players) {
             players.clear();
@@ -211,6 +466,59 @@ public class GameClient extends JFrame {
         }
     }
     
+    private void applySnapshot(String line) {
+        String[] header = line.split(":", 5);
+        int seq = Integer.parseInt(header[1]);
+        int baseSeq = Integer.parseInt(header[2]);
+        lastProcessedInput = Integer.parseInt(header[3]);
+
+        Map<String, String[]> base = null;
+        if (baseSeq != SnapshotCodec.KEYFRAME) {
+            base = snapshotHistory.get(baseSeq);
+            if (base == null) {
+                sendAck(SnapshotCodec.KEYFRAME);
+                return;
+            }
+        }
+
+        Map<String, String[]> snapshot = SnapshotCodec.apply(base, header[4]);
+        snapshotHistory.put(seq, snapshot);
+        acknowledge(seq, !header[4].isEmpty());
+
+        java.util.List<Chicken> chickens = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (players) {
+            players.clear();
+            for (Map.Entry<String, String[]> entry : snapshot.entrySet()) {
+                if (entry.getKey().startsWith(SnapshotCodec.PLAYER_PREFIX)) {
+                    Player pl = Player.fromString(String.join(",", entry.getValue()));
+                    players.put(pl.id, pl);
+                } else if (entry.getKey().startsWith(SnapshotCodec.CHICKEN_PREFIX)) {
+                    chickens.add(Chicken.fromString(String.join(",", entry.getValue())));
+                }
+            }
+            interpolation.record(now, players.values(), playerId, chickens);
+        }
+        reconcilePrediction();
+
+        if (chickensChanged(lastSnapshot, snapshot)) {
+            panel.replaceChickens(chickens);
+        }
+        lastSnapshot = snapshot;
+        interpolate(now);
+    }
+
+    private <T> boolean chickensChanged(Map<String, T> previous, Map<String, T> current) {
+        if (previous == null) return true;
+        for (Map.Entry<String, T> entry : current.entrySet()) {
+            if (entry.getKey().startsWith(SnapshotCodec.CHICKEN_PREFIX)
+                    && !Objects.deepEquals(entry.getValue(), previous.get(entry.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void updateChickensFromServer(String chickensData) {
         
         panel.updateChickensFromServer(chickensData);
@@ -2,6 +2,7 @@ package client;
 
 import common.Chicken;
 import common.DroppedItem;
+import common.EntityRegistry;
 import common.GameConfig;
 import common.Ghost;
 import common.Player;
@@ -16,10 +17,13 @@ public class GamePanel extends JPanel implements KeyListener {
     private String playerId;
     private final Map<String, Image> sprites = new HashMap<>();
     private java.util.List<Chicken> chickens = new ArrayList<>();
+    private EntityRegistry<Chicken> chickenEntities = new EntityRegistry<>();
     private Image chickenSprite;
     private Image chickenHitSprite;
     private java.util.List<DroppedItem> droppedItems = new ArrayList<>();
     private java.util.List<Ghost> ghosts = new ArrayList<>();
+    private final EntityRegistry<DroppedItem> droppedItemEntities = new EntityRegistry<>();
+    private final EntityRegistry<Ghost> ghostEntities = new EntityRegistry<>();
     private Image ghostSprite;
     private GameClient gameClient;
     private int animationFrame = 0;
@@ -34,6 +38,7 @@ public class GamePanel extends JPanel implements KeyListener {
     private InventoryGUI inventoryGUI;
     private JSONDatabase database;
     private String currentPlayerName;
+    private boolean serverProfiles = false;
     private int fps = 0;
     private long lastFpsTime = 0;
     private int frameCount = 0;
@@ -119,6 +124,7 @@ public class GamePanel extends JPanel implements KeyListener {
             
             if (item.isExpired()) {
                 iterator.remove();
+                droppedItemEntities.remove(item.entityId);
                 continue;
             }
             
@@ -132,6 +138,7 @@ public class GamePanel extends JPanel implements KeyListener {
                 
                 
                 iterator.remove();
+                droppedItemEntities.remove(item.entityId);
             }
         }
     }
@@ -144,7 +151,7 @@ public class GamePanel extends JPanel implements KeyListener {
         this.soundManager = new SoundManager();
         this.gameStarted = true;
         this.inventoryGUI = new InventoryGUI(parentFrame);
-        this.database = new JSONDatabase();
+        this.database = JSONDatabase.shared();
         loadSprites();
         loadSounds();
         
@@ -229,11 +236,15 @@ public class GamePanel extends JPanel implements KeyListener {
                 attempts++;
             }
             
-            chickens.add(new Chicken(x, y));
+            Chicken chicken = new Chicken(x, y);
+            chicken.entityId = chickenEntities.add(chicken);
+            chickens.add(chicken);
         }
     }
     
     private void updateChickens() {
+        if (gameClient != null) return;
+
         for (Chicken chicken : chickens) {
             chicken.update(chickens);
         }
@@ -247,6 +258,7 @@ public class GamePanel extends JPanel implements KeyListener {
             ghost.update();
             if (ghost.shouldDespawn()) {
                 iterator.remove();
+                ghostEntities.remove(ghost.entityId);
             }
         }
     }
@@ -266,7 +278,9 @@ public class GamePanel extends JPanel implements KeyListener {
             x = Math.max(0, Math.min(x, GameConfig.MAP_WIDTH - GameConfig.GHOST_SIZE));
             y = Math.max(0, Math.min(y, GameConfig.MAP_HEIGHT - GameConfig.GHOST_SIZE));
             
-            ghosts.add(new Ghost(x, y));
+            Ghost ghost = new Ghost(x, y);
+            ghost.entityId = ghostEntities.add(ghost);
+            ghosts.add(ghost);
             
             if (soundManager != null) {
                 soundManager.playGhostSound();
@@ -332,18 +346,17 @@ public class GamePanel extends JPanel implements KeyListener {
                 if (distance <= attackRange) {
                     System.out.println("Attacking chicken! Distance: " + distance + " <= " + attackRange);
                     
-                    chicken.takeDamage(1);
-                    System.out.println("Chicken health after damage: " + chicken.health);
-                    
+                    if (soundManager != null) {
+                        soundManager.playChickenHitSound();
+                    }
                     
                     if (gameClient != null) {
-                        gameClient.sendChickenAttack(chicken.toString());
+                        gameClient.sendChickenAttack(chicken);
+                        continue;
                     }
                     
-                    
-                    if (soundManager != null) {
-                        soundManager.playChickenHitSound();
-                    }
+                    chicken.takeDamage(1);
+                    System.out.println("Chicken health after damage: " + chicken.health);
                     
                     if (!chicken.isAlive) {
                         
@@ -354,11 +367,6 @@ public class GamePanel extends JPanel implements KeyListener {
                         createDroppedItems(chicken.x, chicken.y);
                         
                         
-                        if (gameClient != null) {
-                            gameClient.sendMoneyUpdate(mainPlayer.money);
-                        }
-                        
-                        
                         savePlayerData();
                         lastDatabaseUpdate = System.currentTimeMillis(); 
                     } else {
@@ -370,25 +378,17 @@ public class GamePanel extends JPanel implements KeyListener {
     }
     
     private void createDroppedItems(int x, int y) {
-        
-        Random random = new Random();
-        
-        
-        if (random.nextDouble() < 0.8) {
-            int featherCount = 1 + random.nextInt(3); 
-            droppedItems.add(new DroppedItem(x, y, "Feather", featherCount));
-        }
-        
-        
-        if (random.nextDouble() < 0.6) {
-            int coinCount = 1 + random.nextInt(2); 
-            droppedItems.add(new DroppedItem(x, y, "Coin", coinCount));
+        for (Map.Entry<String, Integer> loot : DroppedItem.rollChickenLoot(new Random()).entrySet()) {
+            addDroppedItem(new DroppedItem(x, y, loot.getKey(), loot.getValue()));
         }
         
-      
-        
         System.out.println("Created dropped items at: " + x + ", " + y);
     }
+    
+    private void addDroppedItem(DroppedItem item) {
+        item.entityId = droppedItemEntities.add(item);
+        droppedItems.add(item);
+    }
 
     private void drawCooldownBar(Graphics2D g2d) {
         long currentTime = System.currentTimeMillis();
@@ -877,7 +877,7 @@ public class GamePanel extends JPanel implements KeyListener {
                 int frameWidth = chickenSprite.getWidth(null) / GameConfig.CHICKEN_ANIMATION_FRAMES;
                 int frameHeight = chickenSprite.getHeight(null);
                 
-                int srcX = chicken.animationFrame * frameWidth;
+                int srcX = chicken.animationFrame(System.currentTimeMillis()) * frameWidth;
                 int srcY = 0;
                 
                 
@@ -1274,6 +1274,10 @@ public class GamePanel extends JPanel implements KeyListener {
         return false; 
     }
 
+    public java.util.List<Chicken> getChickens() {
+        return chickens;
+    }
+
     public Map<String, Player> getPlayers() {
         return players;
     }
@@ -1355,7 +1359,7 @@ public class GamePanel extends JPanel implements KeyListener {
     }
     
     private void loadPlayerData() {
-        if (currentPlayerName != null && database != null) {
+        if (currentPlayerName != null && database != null && !serverProfiles) {
             JSONDatabase.PlayerData playerData = database.getPlayerData(currentPlayerName);
             
             
@@ -1392,7 +1396,7 @@ public class GamePanel extends JPanel implements KeyListener {
     }
     
     public void loadPlayerDataFromDatabase() {
-        if (database != null && currentPlayerName != null) {
+        if (database != null && currentPlayerName != null && !serverProfiles) {
             JSONDatabase.PlayerData playerData = database.getPlayerData(currentPlayerName);
             if (playerData != null) {
                 
@@ -1418,7 +1422,7 @@ public class GamePanel extends JPanel implements KeyListener {
     }
     
     public void savePlayerData() {
-        if (currentPlayerName != null && database != null) {
+        if (currentPlayerName != null && database != null && !serverProfiles) {
             Player mainPlayer = players.get(playerId);
             if (mainPlayer != null) {
                 JSONDatabase.PlayerData playerData = new JSONDatabase.PlayerData();
@@ -1430,30 +1434,84 @@ public class GamePanel extends JPanel implements KeyListener {
                 
                 playerData.inventory.putAll(inventoryGUI.getAllItems());
                 
+                String problem = database.checkPlayerData(currentPlayerName, playerData);
+                if (problem != null) {
+                    showNotification("Progress not saved: " + problem);
+                    return;
+                }
                 database.savePlayerData(currentPlayerName, playerData);
                 System.out.println("Saved player data for: " + currentPlayerName);
             }
         }
     }
     
+    public void applyServerProfile(String profile) {
+        String[] parts = profile.split("\\|", -1);
+        if (parts.length < 4) return;
+
+        int money = Integer.parseInt(parts[0]);
+        Map<String, Integer> inventory = new HashMap<>();
+        if (!parts[3].isEmpty()) {
+            for (String item : parts[3].split(",")) {
+                String[] itemParts = item.split(":");
+                if (itemParts.length == 2) {
+                    inventory.put(itemParts[0], Integer.parseInt(itemParts[1]));
+                }
+            }
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            Player mainPlayer = players.get(playerId);
+            if (serverProfiles && mainPlayer != null && money > mainPlayer.money) {
+                showNotification("+$" + (money - mainPlayer.money));
+            }
+            if (serverProfiles) {
+                for (Map.Entry<String, Integer> item : inventory.entrySet()) {
+                    int gained = item.getValue() - inventoryGUI.getItemQuantity(item.getKey());
+                    if (gained > 0) {
+                        showNotification("Looted: " + item.getKey() + " x" + gained);
+                    }
+                }
+            }
+            serverProfiles = true;
+            if (mainPlayer != null) {
+                mainPlayer.money = money;
+            }
+            inventoryGUI.loadItems(inventory);
+            repaint();
+        });
+    }
+    
     public void updateChickensFromServer(String chickensData) {
         try {
             System.out.println("Received chickens data: " + chickensData);
-            chickens.clear();
+            java.util.List<Chicken> serverChickens = new ArrayList<>();
             String[] all = chickensData.split(";");
             for (String c : all) {
                 if (!c.isEmpty()) {
                     Chicken chicken = Chicken.fromString(c);
-                    chickens.add(chicken);
+                    serverChickens.add(chicken);
                     System.out.println("Added chicken: " + chicken.x + ", " + chicken.y + " Alive: " + chicken.isAlive);
                 }
             }
+            replaceChickens(serverChickens);
             System.out.println("Total chickens loaded: " + chickens.size());
         } catch (Exception e) {
             System.out.println("Error updating chickens from server: " + e.getMessage());
         }
     }
     
+    public void replaceChickens(java.util.List<Chicken> serverChickens) {
+        EntityRegistry<Chicken> registry = new EntityRegistry<>();
+        for (Chicken chicken : serverChickens) {
+            if (chicken.entityId >= 0) {
+                registry.put(chicken.entityId, chicken);
+            }
+        }
+        chickenEntities = registry;
+        chickens = new ArrayList<>(serverChickens);
+    }
+    
     private void checkChickenRespawn() {
         long currentTime = System.currentTimeMillis();
         for (Chicken chicken : chickens) {
@@ -1461,11 +1519,6 @@ public class GamePanel extends JPanel implements KeyListener {
                 if (currentTime - chicken.deathTime > GameConfig.CHICKEN_RESPAWN_TIME) {
                     System.out.println("Respawning chicken at: " + chicken.originalX + ", " + chicken.originalY);
                     chicken.respawn();
-                    
-                    
-                    if (gameClient != null) {
-                        gameClient.sendChickenAttack(chicken.toString());
-                    }
                 }
             }
         }
@@ -1474,24 +1527,18 @@ public class GamePanel extends JPanel implements KeyListener {
     public void updateChickenFromServer(String chickenData) {
         try {
             Chicken serverChicken = Chicken.fromString(chickenData);
+            Chicken localChicken = chickenEntities.get(serverChicken.entityId);
             
-            
-            for (Chicken localChicken : chickens) {
-                double preciseDistance = GameConfig.calculatePreciseDistance(localChicken.x, localChicken.y, serverChicken.x, serverChicken.y);
-                int distance = (int) Math.round(preciseDistance);
+            if (localChicken != null) {
                 
-                if (distance < GameConfig.CHICKEN_SIZE) {
-                    
-                    localChicken.health = serverChicken.health;
-                    localChicken.isAlive = serverChicken.isAlive;
-                    localChicken.state = serverChicken.state;
-                    localChicken.hitFrame = serverChicken.hitFrame;
-                    localChicken.deathTime = serverChicken.deathTime;
-                    localChicken.lastHitTime = serverChicken.lastHitTime;
-                    
-                    System.out.println("Updated local chicken: " + localChicken.x + ", " + localChicken.y + " Health: " + localChicken.health + " Alive: " + localChicken.isAlive + " State: " + localChicken.state);
-                    break;
-                }
+                localChicken.health = serverChicken.health;
+                localChicken.isAlive = serverChicken.isAlive;
+                localChicken.state = serverChicken.state;
+                localChicken.hitFrame = serverChicken.hitFrame;
+                localChicken.deathTime = serverChicken.deathTime;
+                localChicken.lastHitTime = serverChicken.lastHitTime;
+                
+                System.out.println("Updated local chicken: " + localChicken.x + ", " + localChicken.y + " Health: " + localChicken.health + " Alive: " + localChicken.isAlive + " State: " + localChicken.state);
             }
         } catch (Exception e) {
             System.out.println("Error updating chicken from server: " + e.getMessage());
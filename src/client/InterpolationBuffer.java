@@ -0,0 +1,109 @@
+package client;
+
+import common.Chicken;
+import common.Player;
+import java.util.*;
+
+public class InterpolationBuffer {
+    public static final long INTERPOLATION_DELAY_NANOS = 100_000_000L;
+    public static final long MAX_EXTRAPOLATION_NANOS = 50_000_000L;
+    private static final int SAMPLES = 16;
+
+    private final Map<String, Track> tracks = new HashMap<>();
+
+    private static class Track {
+        final long[] times = new long[SAMPLES];
+        final int[] xs = new int[SAMPLES];
+        final int[] ys = new int[SAMPLES];
+        int count = 0;
+        int head = 0;
+        boolean seen;
+
+        void add(long time, int x, int y) {
+            int slot = (head + count) % SAMPLES;
+            if (count == SAMPLES) {
+                head = (head + 1) % SAMPLES;
+            } else {
+                count++;
+            }
+            times[slot] = time;
+            xs[slot] = x;
+            ys[slot] = y;
+        }
+
+        int slot(int i) {
+            return (head + i) % SAMPLES;
+        }
+    }
+
+    public synchronized void record(long now, Collection<Player> players, String localPlayerId, Collection<Chicken> chickens) {
+        for (Track track : tracks.values()) {
+            track.seen = false;
+        }
+        for (Player p : players) {
+            if (!p.id.equals(localPlayerId)) {
+                add("P." + p.id, now, p.x, p.y);
+            }
+        }
+        for (Chicken chicken : chickens) {
+            add("C." + chicken.entityId, now, chicken.x, chicken.y);
+        }
+        tracks.values().removeIf(track -> !track.seen);
+    }
+
+    private void add(String key, long now, int x, int y) {
+        Track track = tracks.computeIfAbsent(key, k -> new Track());
+        track.add(now, x, y);
+        track.seen = true;
+    }
+
+    public synchronized void apply(long now, Collection<Player> players, String localPlayerId, Collection<Chicken> chickens) {
+        long renderTime = now - INTERPOLATION_DELAY_NANOS;
+        int[] position = new int[2];
+        for (Player p : players) {
+            if (!p.id.equals(localPlayerId) && sample("P." + p.id, renderTime, position)) {
+                p.setPosition(position[0], position[1]);
+            }
+        }
+        for (Chicken chicken : chickens) {
+            if (sample("C." + chicken.entityId, renderTime, position)) {
+                chicken.x = position[0];
+                chicken.y = position[1];
+            }
+        }
+    }
+
+    private boolean sample(String key, long renderTime, int[] out) {
+        Track track = tracks.get(key);
+        if (track == null || track.count == 0) return false;
+
+        int first = track.slot(0);
+        if (track.count == 1 || renderTime <= track.times[first]) {
+            out[0] = track.xs[first];
+            out[1] = track.ys[first];
+            return true;
+        }
+
+        for (int i = track.count - 1; i > 0; i--) {
+            int from = track.slot(i - 1);
+            int to = track.slot(i);
+            if (renderTime >= track.times[from] && renderTime <= track.times[to]) {
+                lerp(track, from, to, renderTime, out);
+                return true;
+            }
+        }
+
+        int last = track.slot(track.count - 1);
+        int previous = track.slot(track.count - 2);
+        long ahead = Math.min(renderTime, track.times[last] + MAX_EXTRAPOLATION_NANOS);
+        lerp(track, previous, last, ahead, out);
+        return true;
+    }
+
+    private static void lerp(Track track, int from, int to, long time, int[] out) {
+        long span = track.times[to] - track.times[from];
+        double t = span > 0 ? (time - track.times[from]) / (double) span : 1.0;
+        out[0] = (int) Math.round(track.xs[from] + (track.xs[to] - track.xs[from]) * t);
+        out[1] = (int) Math.round(track.ys[from] + (track.ys[to] - track.ys[from]) * t);
+    }
+}
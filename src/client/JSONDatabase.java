@@ -1,21 +1,63 @@
 package client;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class JSONDatabase {
     private static final String DATABASE_FILE = "player_data.txt";
-    private Map<String, PlayerData> playerDatabase;
+    private final PlayerStorage storage;
+    private final long flushIntervalMillis;
+    static final PlayerData DELETED = new PlayerData();
+    private final Map<String, PlayerData> pending = new ConcurrentHashMap<>();
+    private final Object signal = new Object();
+    private Thread flusher;
+    private Thread shutdownHook;
+    private volatile boolean running = true;
+    private boolean closed = false;
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    
+    private static JSONDatabase shared;
+    
+    public static synchronized JSONDatabase shared() {
+        if (shared == null) {
+            shared = new JSONDatabase();
+            shared.start();
+        }
+        return shared;
+    }
     
     public JSONDatabase() {
-        playerDatabase = new HashMap<>();
+        this(Paths.get(DATABASE_FILE), Long.getLong("client.db.flush-ms", 2000));
+    }
+    
+    public JSONDatabase(Path file, long flushIntervalMillis) {
+        this(file, flushIntervalMillis, System.getProperty("client.db.engine", "journal"));
+    }
+    
+    public JSONDatabase(Path file, long flushIntervalMillis, String engine) {
+        this.storage = createStorage(file, engine);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
         loadDatabase();
     }
     
+    public synchronized void start() {
+        if (closed || flusher != null) return;
+        
+        flusher = new Thread(this::flushLoop, "player-db-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        shutdownHook = new Thread(this::close, "player-db-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+    
     
     public static class PlayerData {
         public String playerName;
@@ -42,12 +84,20 @@ public class JSONDatabase {
     }
     
     
+    private static PlayerStorage createStorage(Path file, String engine) {
+        switch (engine) {
+            case "text":
+                return new TextPlayerStorage(file);
+            case "mapped":
+                return new MappedPlayerStorage(MappedPlayerStorage.mappedFileFor(file), file);
+            default:
+                return new JournalPlayerStorage(file, Long.getLong("client.db.compact-bytes", 1 << 20));
+        }
+    }
+    
     private void loadDatabase() {
         try {
-            if (Files.exists(Paths.get(DATABASE_FILE))) {
-                String content = new String(Files.readAllBytes(Paths.get(DATABASE_FILE)));
-                parseTextDatabase(content);
-            }
+            storage.open();
         } catch (IOException e) {
             System.out.println("Error loading database: " + e.getMessage());
         }
@@ -55,133 +105,123 @@ public class JSONDatabase {
     
     
     public void saveDatabase() {
-        try {
-            String textContent = generateTextDatabase();
-            Files.write(Paths.get(DATABASE_FILE), textContent.getBytes());
-            System.out.println("Database saved successfully!");
-        } catch (IOException e) {
-            System.out.println("Error saving database: " + e.getMessage());
-        }
+        flush();
     }
     
-    
-    private void parseTextDatabase(String content) {
+    public synchronized void flush() {
+        if (pending.isEmpty()) return;
+        
+        Map<String, PlayerData> batch = new HashMap<>(pending);
         try {
-            System.out.println("Loading text database...");
-            String[] lines = content.split("\n");
-            
-            for (String line : lines) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) continue; 
-                
-                if (line.startsWith("PLAYER:")) {
-                    parsePlayerLine(line);
-                }
+            storage.write(batch);
+            for (Map.Entry<String, PlayerData> change : batch.entrySet()) {
+                pending.remove(change.getKey(), change.getValue());
             }
-        } catch (Exception e) {
-            System.out.println("Error parsing text database: " + e.getMessage());
-            e.printStackTrace();
+            flushes.incrementAndGet();
+            System.out.println("Database saved successfully! (" + batch.size() + " players changed)");
+        } catch (IOException e) {
+            System.out.println("Error saving database: " + e.getMessage());
         }
     }
     
-    
-    private void parsePlayerLine(String line) {
-        try {
-            
-            
-            
-            String data = line.substring(7); 
-            String[] parts = data.split("\\|");
-            
-            if (parts.length >= 4) {
-                String playerName = parts[0];
-                int money = Integer.parseInt(parts[1]);
-                int level = Integer.parseInt(parts[2]);
-                int experience = Integer.parseInt(parts[3]);
-                
-                Map<String, Integer> inventory = new HashMap<>();
-                if (parts.length > 4 && !parts[4].isEmpty()) {
-                    
-                    String[] items = parts[4].split(",");
-                    for (String item : items) {
-                        if (item.contains(":")) {
-                            String[] itemParts = item.split(":");
-                            if (itemParts.length == 2) {
-                                String itemName = itemParts[0];
-                                int quantity = Integer.parseInt(itemParts[1]);
-                                inventory.put(itemName, quantity);
-                            }
-                        }
+    private void flushLoop() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running) {
+                        signal.wait(flushIntervalMillis);
                     }
                 }
-                
-                PlayerData playerData = new PlayerData(playerName, money, inventory, level, experience);
-                playerDatabase.put(playerName, playerData);
-                System.out.println("Loaded player: " + playerName + " Money: " + money + " Inventory: " + inventory);
+            } catch (InterruptedException e) {
+                break;
             }
-        } catch (Exception e) {
-            System.out.println("Error parsing player line: " + e.getMessage());
-            e.printStackTrace();
+            flush();
         }
     }
     
-    
-    private String generateTextDatabase() {
-        StringBuilder text = new StringBuilder();
-        text.append("# Player Database\n");
-        text.append("# Format: PLAYER:playerName|money|level|experience|inventory\n");
-        text.append("# Inventory format: item1:quantity1,item2:quantity2\n\n");
-        
-        for (Map.Entry<String, PlayerData> entry : playerDatabase.entrySet()) {
-            String playerName = entry.getKey();
-            PlayerData playerData = entry.getValue();
-            
-            text.append("PLAYER:").append(playerName).append("|");
-            text.append(playerData.money).append("|");
-            text.append(playerData.level).append("|");
-            text.append(playerData.experience).append("|");
-            
-            
-            if (playerData.inventory != null && !playerData.inventory.isEmpty()) {
-                boolean first = true;
-                for (Map.Entry<String, Integer> item : playerData.inventory.entrySet()) {
-                    if (!first) text.append(",");
-                    text.append(item.getKey()).append(":").append(item.getValue());
-                    first = false;
-                }
+    public void close() {
+        Thread thread;
+        Thread hook;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            thread = flusher;
+            hook = shutdownHook;
+        }
+        running = false;
+        synchronized (signal) {
+            signal.notify();
+        }
+        if (thread != null) {
+            try {
+                thread.join(flushIntervalMillis + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        storage.close();
+        if (hook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException ignored) {
             }
-            text.append("\n");
         }
-        
-        return text.toString();
     }
     
+    public String summarize() {
+        return String.format("saves=%d flushes=%d dirty=%d %s", saves.get(), flushes.get(), pending.size(), storage.summarize());
+    }
     
     
     public PlayerData getPlayerData(String playerName) {
-        return playerDatabase.getOrDefault(playerName, new PlayerData());
+        PlayerData playerData = pending.get(playerName);
+        if (playerData == null) {
+            playerData = storage.read(playerName);
+        }
+        return playerData != null && playerData != DELETED ? playerData : new PlayerData();
     }
     
     
-    public void savePlayerData(String playerName, PlayerData playerData) {
+    public String checkPlayerData(String playerName, PlayerData playerData) {
+        return storage.validate(playerName, playerData);
+    }
+    
+    public boolean savePlayerData(String playerName, PlayerData playerData) {
+        String problem = storage.validate(playerName, playerData);
+        if (problem != null) {
+            System.out.println("Refusing to save player " + playerName + ": " + problem);
+            return false;
+        }
         playerData.playerName = playerName;
-        playerDatabase.put(playerName, playerData);
-        saveDatabase();
+        pending.put(playerName, new PlayerData(playerName, playerData.money, new HashMap<>(playerData.inventory),
+                playerData.level, playerData.experience));
+        saves.incrementAndGet();
+        return true;
     }
     
     
     public boolean playerExists(String playerName) {
-        return playerDatabase.containsKey(playerName);
+        PlayerData playerData = pending.get(playerName);
+        return playerData != null ? playerData != DELETED : storage.contains(playerName);
     }
     
     
     public Set<String> getAllPlayerNames() {
-        return playerDatabase.keySet();
+        Set<String> names = new HashSet<>(storage.names());
+        for (Map.Entry<String, PlayerData> change : pending.entrySet()) {
+            if (change.getValue() == DELETED) {
+                names.remove(change.getKey());
+            } else {
+                names.add(change.getKey());
+            }
+        }
+        return names;
     }
     
     
     public void deletePlayer(String playerName) {
-        playerDatabase.remove(playerName);
-        saveDatabase();
+        pending.put(playerName, DELETED);
+        saves.incrementAndGet();
     }
 }
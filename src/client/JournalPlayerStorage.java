@@ -0,0 +1,196 @@
+package client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+class JournalPlayerStorage extends TextPlayerStorage {
+    static final String DELETE_PREFIX = "DELETE:";
+
+    private final Path journal;
+    private final Path rotated;
+    private final long compactBytes;
+    private FileChannel channel;
+    private long journalBytes;
+    private Thread compactor;
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    JournalPlayerStorage(Path file, long compactBytes) {
+        super(file);
+        this.journal = file.resolveSibling(file.getFileName() + ".journal");
+        this.rotated = file.resolveSibling(file.getFileName() + ".journal.old");
+        this.compactBytes = Math.max(1, compactBytes);
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        if (Files.exists(file) && !Files.exists(journal) && !Files.exists(rotated)) {
+            System.out.println("Migrating " + file + " to journaled storage, using it as the base snapshot");
+        }
+        super.open();
+        replay(rotated);
+        replay(journal);
+
+        channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journalBytes = channel.size();
+        channel.position(journalBytes);
+        if (Files.exists(rotated)) {
+            writeSnapshot(generateSnapshot());
+            Files.delete(rotated);
+            System.out.println("Finished interrupted compaction of " + file);
+        }
+        System.out.println("Journal replay: " + replayed.get() + " records, " + journalBytes + " bytes pending compaction");
+    }
+
+    private void replay(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+
+        byte[] bytes = Files.readAllBytes(path);
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') end++;
+            if (end == bytes.length || !replay(new String(bytes, start, end - start, StandardCharsets.UTF_8))) break;
+            start = end + 1;
+        }
+        if (start < bytes.length) {
+            System.out.println("Discarding " + (bytes.length - start) + " bytes of torn journal tail in " + path);
+            try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(start);
+                truncate.force(true);
+            }
+        }
+    }
+
+    private boolean replay(String line) {
+        int space = line.indexOf(' ');
+        if (space != 8) return false;
+
+        String record = line.substring(space + 1);
+        long crc;
+        try {
+            crc = Long.parseLong(line.substring(0, space), 16);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (crc != checksum(record)) return false;
+
+        if (record.startsWith(DELETE_PREFIX)) {
+            remove(record.substring(DELETE_PREFIX.length()));
+        } else if (record.startsWith(PLAYER_PREFIX)) {
+            JSONDatabase.PlayerData playerData = parsePlayerLine(record);
+            if (playerData == null) return false;
+            replace(playerData.playerName, playerData);
+        } else {
+            return false;
+        }
+        replayed.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public synchronized void write(Map<String, JSONDatabase.PlayerData> changes) throws IOException {
+        if (channel == null) throw new IOException("journal " + journal + " is not open");
+
+        StringBuilder batch = new StringBuilder();
+        for (Map.Entry<String, JSONDatabase.PlayerData> change : changes.entrySet()) {
+            String record = change.getValue() == JSONDatabase.DELETED ? DELETE_PREFIX + change.getKey()
+                    : formatPlayerLine(change.getKey(), change.getValue());
+            batch.append(String.format("%08x ", checksum(record))).append(record).append('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        journalBytes += length;
+        commits.incrementAndGet();
+        records.addAndGet(changes.size());
+        apply(changes);
+
+        if (journalBytes >= compactBytes && (compactor == null || !compactor.isAlive())) {
+            startCompaction();
+        }
+    }
+
+    private void startCompaction() throws IOException {
+        if (!Files.exists(rotated)) {
+            channel.close();
+            Files.move(journal, rotated, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            journalBytes = 0;
+        }
+        Snapshot snapshot = generateSnapshot();
+        compactor = new Thread(() -> compact(snapshot), "player-db-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    private void compact(Snapshot snapshot) {
+        try {
+            long start = System.nanoTime();
+            writeSnapshot(snapshot);
+            Files.deleteIfExists(rotated);
+            System.out.printf("Compacted player journal into %s in %.1fms%n", file, (System.nanoTime() - start) / 1_000_000.0);
+        } catch (IOException e) {
+            System.out.println("Error compacting player journal: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        Thread running;
+        synchronized (this) {
+            running = compactor;
+        }
+        if (running != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (channel != null) {
+                try {
+                    if (journalBytes > 0 || Files.exists(rotated)) {
+                        writeSnapshot(generateSnapshot());
+                        Files.deleteIfExists(rotated);
+                        channel.truncate(0);
+                        channel.force(true);
+                        journalBytes = 0;
+                    }
+                    channel.close();
+                } catch (IOException e) {
+                    System.out.println("Error closing player journal: " + e.getMessage());
+                }
+                channel = null;
+            }
+            super.close();
+        }
+    }
+
+    @Override
+    public synchronized String summarize() {
+        return String.format("engine=journal commits=%d records=%d journal-bytes=%d %s", commits.get(), records.get(), journalBytes,
+                super.summarize().substring("engine=text ".length()));
+    }
+
+    private static long checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
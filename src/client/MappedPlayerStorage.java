@@ -0,0 +1,462 @@
+package client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+class MappedPlayerStorage implements PlayerStorage {
+    static final int MAGIC = 0x504C5952;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int SLOT_SIZE = 256;
+    static final int NAME_BYTES = 32;
+    static final int MAX_ITEMS = 10;
+    static final int ITEM_NAME_BYTES = 15;
+    static final int INITIAL_CAPACITY = 1024;
+
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SLOT_SIZE = 12;
+    private static final int HEADER_USED = 16;
+    private static final int HEADER_TOMBSTONES = 20;
+    private static final int HEADER_NAMES_LENGTH = 24;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte TOMBSTONE = 2;
+
+    private static final int STATE = 0;
+    private static final int NAME_LENGTH = 1;
+    private static final int NAME = 2;
+    private static final int MONEY = NAME + NAME_BYTES;
+    private static final int LEVEL = MONEY + 4;
+    private static final int EXPERIENCE = LEVEL + 4;
+    private static final int ITEM_COUNT = EXPERIENCE + 4;
+    private static final int ITEMS = ITEM_COUNT + 1;
+    private static final int ITEM_SIZE = 1 + ITEM_NAME_BYTES + 4;
+    private static final int CHECKSUM = SLOT_SIZE - 4;
+
+    private final Path file;
+    private final Path legacy;
+    private final Path namesFile;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private StorageLock lock;
+    private int capacity;
+    private int used;
+    private int tombstones;
+    private long namesLength;
+    private Set<String> names;
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong slotWrites = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong resizes = new AtomicLong();
+
+    MappedPlayerStorage(Path file, Path legacy) {
+        this(file, legacy, file.resolveSibling(file.getFileName() + ".names"));
+    }
+
+    private MappedPlayerStorage(Path file, Path legacy, Path namesFile) {
+        this.file = file;
+        this.legacy = legacy;
+        this.namesFile = namesFile;
+    }
+
+    static Path mappedFileFor(Path textFile) {
+        String name = textFile.getFileName().toString();
+        return textFile.resolveSibling((name.endsWith(".txt") ? name.substring(0, name.length() - 4) : name) + ".dat");
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        lock = StorageLock.acquire(file);
+        if (!Files.exists(file) && legacy != null && Files.exists(legacy)) {
+            System.out.println("Converting " + legacy + " to mapped player records in " + file);
+            convert(legacy, file);
+        }
+        if (!Files.exists(file)) {
+            create(file, INITIAL_CAPACITY);
+        }
+        map();
+        System.out.println("Mapped player records: " + used + " players in " + capacity + " slots (" + file + ")");
+    }
+
+    private void map() throws IOException {
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = opened.map(FileChannel.MapMode.READ_WRITE, 0, opened.size());
+        int slots = opened.size() >= HEADER_SIZE ? mapped.getInt(HEADER_CAPACITY) : 0;
+        if (opened.size() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getInt(HEADER_SLOT_SIZE) != SLOT_SIZE
+                || Integer.bitCount(slots) != 1 || opened.size() < (long) HEADER_SIZE + (long) slots * SLOT_SIZE) {
+            opened.close();
+            throw new IOException(file + " is not a valid version " + VERSION + " player record file");
+        }
+        channel = opened;
+        buffer = mapped;
+        capacity = slots;
+        used = buffer.getInt(HEADER_USED);
+        tombstones = buffer.getInt(HEADER_TOMBSTONES);
+        namesLength = buffer.getLong(HEADER_NAMES_LENGTH);
+    }
+
+    private void loadNames() throws IOException {
+        int records = 0;
+        if (Files.exists(namesFile) && Files.size(namesFile) >= namesLength) {
+            byte[] bytes = Files.readAllBytes(namesFile);
+            names = new HashSet<>();
+            for (String line : new String(bytes, 0, (int) namesLength, StandardCharsets.UTF_8).split("\n")) {
+                if (line.startsWith("+")) {
+                    names.add(line.substring(1));
+                } else if (line.startsWith("-")) {
+                    names.remove(line.substring(1));
+                }
+                records++;
+            }
+            if (names.size() == used) {
+                if (records > 2L * used + INITIAL_CAPACITY) {
+                    writeNames();
+                }
+                return;
+            }
+        }
+        System.out.println("Rebuilding stale player name list " + namesFile);
+        names = new HashSet<>();
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = offsetOf(slot);
+            if (buffer.get(offset + STATE) == USED) {
+                names.add(readName(offset));
+            }
+        }
+        writeNames();
+    }
+
+    private void writeNames() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String name : names) {
+            text.append('+').append(name).append('\n');
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Path tmp = Files.createTempFile(namesFile.toAbsolutePath().getParent(), namesFile.getFileName().toString(), ".tmp");
+        Files.write(tmp, bytes);
+        Files.move(tmp, namesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        namesLength = bytes.length;
+        buffer.putLong(HEADER_NAMES_LENGTH, namesLength);
+        buffer.force();
+    }
+
+    private void appendNames(String changes) throws IOException {
+        byte[] bytes = changes.getBytes(StandardCharsets.UTF_8);
+        try (FileChannel log = FileChannel.open(namesFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long end = log.size() >= namesLength ? namesLength : 0;
+            log.truncate(end);
+            ByteBuffer data = ByteBuffer.wrap(bytes);
+            while (data.hasRemaining()) {
+                log.write(data, end + data.position());
+            }
+            log.force(false);
+            namesLength = end + bytes.length;
+        }
+    }
+
+    private static void create(Path path, int capacity) throws IOException {
+        try (FileChannel created = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(HEADER_CAPACITY, capacity).putInt(HEADER_SLOT_SIZE, SLOT_SIZE);
+            created.write(header, 0);
+            created.truncate((long) HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            created.write(ByteBuffer.allocate(1), (long) HEADER_SIZE + (long) capacity * SLOT_SIZE - 1);
+            created.force(true);
+        }
+    }
+
+    @Override
+    public synchronized JSONDatabase.PlayerData read(String playerName) {
+        int slot = find(playerName.getBytes(StandardCharsets.UTF_8));
+        if (slot < 0) return null;
+
+        reads.incrementAndGet();
+        return decode(slot);
+    }
+
+    @Override
+    public synchronized boolean contains(String playerName) {
+        return find(playerName.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    @Override
+    public String validate(String playerName, JSONDatabase.PlayerData playerData) {
+        return fits(playerName, playerData);
+    }
+
+    private static String fits(String playerName, JSONDatabase.PlayerData playerData) {
+        int nameLength = playerName.getBytes(StandardCharsets.UTF_8).length;
+        if (nameLength == 0 || nameLength > NAME_BYTES || playerName.indexOf('\n') >= 0 || playerName.indexOf('\r') >= 0) {
+            return "name must be 1-" + NAME_BYTES + " bytes without line breaks";
+        }
+        if (playerData.inventory.size() > MAX_ITEMS) return "a player record holds at most " + MAX_ITEMS + " kinds of item";
+        for (String item : playerData.inventory.keySet()) {
+            int itemLength = item.getBytes(StandardCharsets.UTF_8).length;
+            if (itemLength == 0 || itemLength > ITEM_NAME_BYTES) return "item name " + item + " must be 1-" + ITEM_NAME_BYTES + " bytes";
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized Set<String> names() {
+        if (names == null && buffer != null && namesFile != null) {
+            try {
+                loadNames();
+            } catch (IOException e) {
+                System.out.println("Error loading player name list " + namesFile + ": " + e.getMessage());
+            }
+        }
+        return names != null ? new HashSet<>(names) : new HashSet<>();
+    }
+
+    @Override
+    public synchronized void write(Map<String, JSONDatabase.PlayerData> changes) throws IOException {
+        if (buffer == null) throw new IOException(file + " is not open");
+        for (Map.Entry<String, JSONDatabase.PlayerData> change : changes.entrySet()) {
+            if (change.getValue() == JSONDatabase.DELETED) continue;
+
+            String problem = validate(change.getKey(), change.getValue());
+            if (problem != null) throw new IOException("cannot store player " + change.getKey() + ": " + problem);
+        }
+
+        StringBuilder renamed = new StringBuilder();
+        for (Map.Entry<String, JSONDatabase.PlayerData> change : changes.entrySet()) {
+            byte[] name = change.getKey().getBytes(StandardCharsets.UTF_8);
+            if (change.getValue() == JSONDatabase.DELETED) {
+                if (delete(change.getKey(), name)) {
+                    renamed.append('-').append(change.getKey()).append('\n');
+                }
+            } else if (put(change.getKey(), name, change.getValue())) {
+                renamed.append('+').append(change.getKey()).append('\n');
+            }
+        }
+        buffer.putInt(HEADER_USED, used).putInt(HEADER_TOMBSTONES, tombstones);
+        if (renamed.length() > 0 && namesFile != null) {
+            appendNames(renamed.toString());
+            buffer.putLong(HEADER_NAMES_LENGTH, namesLength);
+        }
+        buffer.force();
+        syncs.incrementAndGet();
+    }
+
+    private boolean put(String playerName, byte[] name, JSONDatabase.PlayerData playerData) throws IOException {
+        int slot = find(name);
+        if (slot < 0) {
+            if ((used + tombstones + 1) * 10L > capacity * 7L) {
+                resize(used * 10L + 10 > capacity * 5L ? capacity * 2 : capacity);
+            }
+            slot = insertionSlot(name);
+            if (buffer.get(offsetOf(slot) + STATE) == TOMBSTONE) {
+                tombstones--;
+            }
+            used++;
+            encode(slot, name, playerData);
+            if (names != null) {
+                names.add(playerName);
+            }
+            return true;
+        }
+        encode(slot, name, playerData);
+        return false;
+    }
+
+    private boolean delete(String playerName, byte[] name) {
+        int slot = find(name);
+        if (slot < 0) return false;
+
+        int offset = offsetOf(slot);
+        buffer.put(offset + STATE, TOMBSTONE);
+        buffer.putInt(offset + CHECKSUM, checksum(offset));
+        used--;
+        tombstones++;
+        slotWrites.incrementAndGet();
+        if (names != null) {
+            names.remove(playerName);
+        }
+        return true;
+    }
+
+    private int find(byte[] name) {
+        int mask = capacity - 1;
+        for (int i = 0, slot = hash(name) & mask; i < capacity; i++, slot = (slot + 1) & mask) {
+            int offset = offsetOf(slot);
+            byte state = buffer.get(offset + STATE);
+            if (state == EMPTY) return -1;
+            if (state == USED && nameEquals(offset, name)) return slot;
+        }
+        return -1;
+    }
+
+    private int insertionSlot(byte[] name) {
+        int mask = capacity - 1;
+        for (int slot = hash(name) & mask; ; slot = (slot + 1) & mask) {
+            if (buffer.get(offsetOf(slot) + STATE) != USED) return slot;
+        }
+    }
+
+    private boolean nameEquals(int offset, byte[] name) {
+        if (buffer.get(offset + NAME_LENGTH) != name.length) return false;
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(offset + NAME + i) != name[i]) return false;
+        }
+        return true;
+    }
+
+    private void encode(int slot, byte[] name, JSONDatabase.PlayerData playerData) {
+        int offset = offsetOf(slot);
+        ByteBuffer record = ByteBuffer.allocate(SLOT_SIZE);
+        record.put(STATE, USED).put(NAME_LENGTH, (byte) name.length).put(NAME, name);
+        record.putInt(MONEY, playerData.money).putInt(LEVEL, playerData.level).putInt(EXPERIENCE, playerData.experience);
+
+        int items = 0;
+        for (Map.Entry<String, Integer> item : playerData.inventory.entrySet()) {
+            byte[] itemName = item.getKey().getBytes(StandardCharsets.UTF_8);
+            int itemOffset = ITEMS + items * ITEM_SIZE;
+            record.put(itemOffset, (byte) itemName.length).put(itemOffset + 1, itemName).putInt(itemOffset + 1 + ITEM_NAME_BYTES, item.getValue());
+            items++;
+        }
+        record.put(ITEM_COUNT, (byte) items);
+
+        buffer.put(offset, record, 0, CHECKSUM);
+        buffer.putInt(offset + CHECKSUM, checksum(offset));
+        slotWrites.incrementAndGet();
+    }
+
+    private JSONDatabase.PlayerData decode(int slot) {
+        int offset = offsetOf(slot);
+        if (buffer.getInt(offset + CHECKSUM) != checksum(offset)) {
+            System.out.println("Ignoring corrupt player record in slot " + slot + " of " + file);
+            return null;
+        }
+
+        Map<String, Integer> inventory = new HashMap<>();
+        int items = buffer.get(offset + ITEM_COUNT);
+        for (int i = 0; i < items; i++) {
+            int itemOffset = offset + ITEMS + i * ITEM_SIZE;
+            byte[] itemName = new byte[buffer.get(itemOffset)];
+            buffer.get(itemOffset + 1, itemName);
+            inventory.put(new String(itemName, StandardCharsets.UTF_8), buffer.getInt(itemOffset + 1 + ITEM_NAME_BYTES));
+        }
+        return new JSONDatabase.PlayerData(readName(offset), buffer.getInt(offset + MONEY), inventory,
+                buffer.getInt(offset + LEVEL), buffer.getInt(offset + EXPERIENCE));
+    }
+
+    private String readName(int offset) {
+        byte[] name = new byte[buffer.get(offset + NAME_LENGTH)];
+        buffer.get(offset + NAME, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private void resize(int newCapacity) throws IOException {
+        long start = System.nanoTime();
+        Path tmp = file.resolveSibling(file.getFileName() + ".resize");
+        Files.deleteIfExists(tmp);
+        create(tmp, newCapacity);
+
+        MappedPlayerStorage target = new MappedPlayerStorage(tmp, null, null);
+        target.map();
+        byte[] slot = new byte[SLOT_SIZE];
+        for (int i = 0; i < capacity; i++) {
+            int offset = offsetOf(i);
+            if (buffer.get(offset + STATE) != USED) continue;
+
+            buffer.get(offset, slot);
+            byte[] name = Arrays.copyOfRange(slot, NAME, NAME + slot[NAME_LENGTH]);
+            target.buffer.put(target.offsetOf(target.insertionSlot(name)), slot);
+            target.used++;
+        }
+        target.buffer.putInt(HEADER_USED, target.used).putLong(HEADER_NAMES_LENGTH, namesLength);
+        target.buffer.force();
+        target.channel.close();
+
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map();
+        resizes.incrementAndGet();
+        System.out.printf("Resized mapped player records to %d slots in %.1fms%n", capacity, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    private int offsetOf(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private int checksum(int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, CHECKSUM));
+        return (int) crc.getValue();
+    }
+
+    private static int hash(byte[] name) {
+        int h = Arrays.hashCode(name);
+        return h ^ (h >>> 16);
+    }
+
+    static void convert(Path textFile, Path mappedFile) throws IOException {
+        TextPlayerStorage text = new TextPlayerStorage(textFile);
+        text.open();
+        Map<String, JSONDatabase.PlayerData> players = new HashMap<>();
+        int skipped = 0;
+        for (Map.Entry<String, JSONDatabase.PlayerData> player : text.readAll().entrySet()) {
+            String problem = fits(player.getKey(), player.getValue());
+            if (problem != null) {
+                System.out.println("Skipping player " + player.getKey() + " (" + problem + "), it stays in " + textFile);
+                skipped++;
+            } else {
+                players.put(player.getKey(), player.getValue());
+            }
+        }
+        text.close();
+        int capacity = INITIAL_CAPACITY;
+        while (players.size() * 10L > capacity * 5L) {
+            capacity *= 2;
+        }
+
+        Path tmp = mappedFile.resolveSibling(mappedFile.getFileName() + ".convert");
+        Files.deleteIfExists(tmp);
+        create(tmp, capacity);
+        MappedPlayerStorage mapped = new MappedPlayerStorage(tmp, null, null);
+        mapped.map();
+        mapped.write(players);
+        mapped.close();
+        Files.move(tmp, mappedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Converted " + players.size() + " players from " + textFile + " into " + capacity + " slots"
+                + (skipped > 0 ? ", skipped " + skipped + " that do not fit a slot" : ""));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel != null) {
+            buffer.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("Error closing mapped player records: " + e.getMessage());
+            }
+        }
+        if (lock != null) {
+            lock.release();
+            lock = null;
+        }
+    }
+
+    @Override
+    public synchronized String summarize() {
+        return String.format("engine=mapped players=%d slots=%d reads=%d slot-writes=%d syncs=%d resizes=%d",
+                used, capacity, reads.get(), slotWrites.get(), syncs.get(), resizes.get());
+    }
+}
@@ -0,0 +1,18 @@
+package client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class PlayerDataConverter {
+    public static void main(String[] args) throws Exception {
+        Path text = Paths.get(args.length > 0 ? args[0] : "player_data.txt");
+        Path mapped = args.length > 1 ? Paths.get(args[1]) : MappedPlayerStorage.mappedFileFor(text);
+        if (!Files.exists(text)) {
+            System.out.println("No text player database at " + text);
+            return;
+        }
+        MappedPlayerStorage.convert(text, mapped);
+        System.out.println("Start the client with -Dclient.db.engine=mapped to use " + mapped);
+    }
+}
@@ -19,7 +19,7 @@ public class PlayerNameGUI extends JFrame implements ActionListener, KeyListener
     private boolean isPlayerSelected = false;
     
     public PlayerNameGUI() {
-        database = new JSONDatabase();
+        database = JSONDatabase.shared();
         setupGUI();
     }
     
@@ -265,6 +265,15 @@ public class PlayerNameGUI extends JFrame implements ActionListener, KeyListener
             return;
         }
         
+        String problem = database.checkPlayerData(playerName, new JSONDatabase.PlayerData());
+        if (problem != null) {
+            statusLabel.setText("Invalid character name: " + problem);
+            statusLabel.setForeground(new Color(255, 100, 100));
+            nameField.selectAll();
+            nameField.requestFocus();
+            return;
+        }
+        
         if (database.playerExists(playerName)) {
             statusLabel.setText("Character name already exists! Choose a different name.");
             statusLabel.setForeground(new Color(255, 100, 100));
@@ -0,0 +1,158 @@
+package client;
+
+import common.GameConfig;
+import common.Player;
+
+public class PlayerPredictor {
+    public static final int INPUT_BUFFER_SIZE = 64;
+    public static final int SNAP_THRESHOLD = 24;
+    private static final double CORRECTION_RATE = 0.2;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final int[] inputSeqs = new int[INPUT_BUFFER_SIZE];
+    private final String[] inputDirections = new String[INPUT_BUFFER_SIZE];
+    private final long[] inputTimes = new long[INPUT_BUFFER_SIZE];
+    private int inputCount = 0;
+    private int inputHead = 0;
+
+    private Player predicted;
+    private double moveRemainder = 0;
+    private int correctionX, correctionY;
+    private String direction = null;
+    private long lastAdvance = 0;
+    private int lastAckedInput = 0;
+    private String ackedDirection = null;
+    private long attackStart = 0;
+    private long attackEnd = 0;
+    private long rttNanos = 100_000_000L;
+    private int snaps = 0;
+
+    public synchronized void recordInput(int seq, String direction, long now) {
+        int slot = (inputHead + inputCount) % INPUT_BUFFER_SIZE;
+        if (inputCount == INPUT_BUFFER_SIZE) {
+            inputHead = (inputHead + 1) % INPUT_BUFFER_SIZE;
+        } else {
+            inputCount++;
+        }
+        inputSeqs[slot] = seq;
+        inputDirections[slot] = direction;
+        inputTimes[slot] = now;
+    }
+
+    public synchronized void recordAttack(long now) {
+        if (attackEnd != 0 && now - attackEnd < GameConfig.ATTACK_COOLDOWN * NANOS_PER_MILLI) return;
+
+        attackStart = now;
+        attackEnd = now + GameConfig.ATTACK_DURATION * NANOS_PER_MILLI;
+    }
+
+    public synchronized void advance(String heldDirection, long now) {
+        if (predicted != null && lastAdvance != 0) {
+            moveRemainder += GameConfig.MOVE_SPEED_PER_SECOND * movingNanos(lastAdvance, now) / (double) NANOS_PER_SECOND;
+            int distance = (int) moveRemainder;
+            moveRemainder -= distance;
+            if (heldDirection != null) {
+                predicted.move(heldDirection, distance);
+            }
+
+            int stepX = correctionStep(correctionX);
+            int stepY = correctionStep(correctionY);
+            predicted.setPosition(clampX(predicted.x + stepX), clampY(predicted.y + stepY));
+            correctionX -= stepX;
+            correctionY -= stepY;
+        }
+        direction = heldDirection;
+        lastAdvance = now;
+    }
+
+    public synchronized void reconcile(Player server, int ackedInput, long now) {
+        if (ackedInput > lastAckedInput) {
+            while (inputCount > 0 && inputSeqs[inputHead] <= ackedInput) {
+                if (inputSeqs[inputHead] == ackedInput) {
+                    rttNanos = (rttNanos * 7 + (now - inputTimes[inputHead])) / 8;
+                }
+                ackedDirection = inputDirections[inputHead];
+                inputHead = (inputHead + 1) % INPUT_BUFFER_SIZE;
+                inputCount--;
+            }
+            lastAckedInput = ackedInput;
+        }
+
+        Player replay = new Player(server.id, server.x, server.y);
+        long from = now - rttNanos;
+        String held = ackedDirection;
+        long start = from;
+        for (int i = 0; i < inputCount; i++) {
+            int slot = (inputHead + i) % INPUT_BUFFER_SIZE;
+            replay(replay, held, start, inputTimes[slot]);
+            held = inputDirections[slot];
+            start = Math.max(from, inputTimes[slot]);
+        }
+        replay(replay, held, start, now);
+
+        if (predicted == null) {
+            predicted = server.copy();
+            predicted.state = "idle";
+            return;
+        }
+        int errorX = replay.x - predicted.x;
+        int errorY = replay.y - predicted.y;
+        if (Math.abs(errorX) > SNAP_THRESHOLD || Math.abs(errorY) > SNAP_THRESHOLD) {
+            snaps++;
+            predicted.setPosition(replay.x, replay.y);
+            correctionX = 0;
+            correctionY = 0;
+        } else {
+            correctionX = errorX;
+            correctionY = errorY;
+        }
+    }
+
+    public synchronized void applyTo(Player player) {
+        if (predicted == null) return;
+
+        player.setPosition(predicted.x, predicted.y);
+        if (direction != null && !player.state.equals("attack2")) {
+            player.direction = direction;
+            player.state = "run";
+        }
+    }
+
+    public synchronized long getRttMillis() {
+        return rttNanos / 1_000_000L;
+    }
+
+    public synchronized int getSnapCount() {
+        return snaps;
+    }
+
+    private void replay(Player player, String direction, long start, long end) {
+        long moving = movingNanos(start, end);
+        if (direction == null || moving <= 0) return;
+
+        player.move(direction, (int) Math.round(GameConfig.MOVE_SPEED_PER_SECOND * moving / (double) NANOS_PER_SECOND));
+    }
+
+    private long movingNanos(long start, long end) {
+        if (end <= start) return 0;
+
+        long locked = Math.min(end, attackEnd) - Math.max(start, attackStart);
+        return end - start - Math.max(0, locked);
+    }
+
+    private static int correctionStep(int error) {
+        if (error == 0) return 0;
+
+        int step = Math.max(1, (int) (Math.abs(error) * CORRECTION_RATE));
+        return error > 0 ? step : -step;
+    }
+
+    private static int clampX(int x) {
+        return Math.max(0, Math.min(x, GameConfig.MAP_WIDTH - GameConfig.PLAYER_SIZE));
+    }
+
+    private static int clampY(int y) {
+        return Math.max(0, Math.min(y, GameConfig.MAP_HEIGHT - GameConfig.PLAYER_SIZE));
+    }
+}
@@ -0,0 +1,23 @@
+package client;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+interface PlayerStorage {
+    void open() throws IOException;
+
+    JSONDatabase.PlayerData read(String playerName);
+
+    boolean contains(String playerName);
+
+    String validate(String playerName, JSONDatabase.PlayerData playerData);
+
+    Set<String> names();
+
+    void write(Map<String, JSONDatabase.PlayerData> changes) throws IOException;
+
+    void close();
+
+    String summarize();
+}
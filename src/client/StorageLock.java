@@ -0,0 +1,45 @@
+package client;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class StorageLock {
+    private final Path path;
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private StorageLock(Path path, FileChannel channel, FileLock lock) {
+        this.path = path;
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    static StorageLock acquire(Path file) throws IOException {
+        Path path = file.resolveSibling(file.getFileName() + ".lock");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(file + " is already open in another database instance (" + path + " is locked)");
+        }
+        return new StorageLock(path, channel, lock);
+    }
+
+    void release() {
+        try {
+            lock.release();
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error releasing " + path + ": " + e.getMessage());
+        }
+    }
+}
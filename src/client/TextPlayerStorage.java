@@ -0,0 +1,332 @@
+package client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+class TextPlayerStorage implements PlayerStorage {
+    static final String PLAYER_PREFIX = "PLAYER:";
+    private static final byte[] PLAYER_PREFIX_BYTES = PLAYER_PREFIX.getBytes(StandardCharsets.UTF_8);
+    private static final String HEADER = "# Player Database\n"
+            + "# Format: PLAYER:playerName|money|level|experience|inventory\n"
+            + "# Inventory format: item1:quantity1,item2:quantity2\n\n";
+
+    final Path file;
+    final Map<String, JSONDatabase.PlayerData> players = new ConcurrentHashMap<>();
+    final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    final AtomicLong snapshots = new AtomicLong();
+    final AtomicLong parsed = new AtomicLong();
+    private final Object snapshotLock = new Object();
+    private FileChannel snapshotChannel;
+    private StorageLock lock;
+    private volatile Map<String, Long> index = new HashMap<>();
+
+    static class Snapshot {
+        final byte[] content;
+        final Map<String, Long> index;
+
+        Snapshot(byte[] content, Map<String, Long> index) {
+            this.content = content;
+            this.index = index;
+        }
+    }
+
+    TextPlayerStorage(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void open() throws IOException {
+        lock = StorageLock.acquire(file);
+        if (!Files.exists(file)) return;
+
+        long start = System.nanoTime();
+        System.out.println("Loading text database...");
+        install(indexLines(Files.readAllBytes(file)));
+        System.out.printf("Indexed %d players in %s in %.1fms%n", index.size(), file, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    private static Map<String, Long> indexLines(byte[] content) {
+        Map<String, Long> index = new HashMap<>();
+        int start = 0;
+        while (start < content.length) {
+            int end = start;
+            while (end < content.length && content[end] != '\n') end++;
+            int lineEnd = end > start && content[end - 1] == '\r' ? end - 1 : end;
+            if (startsWith(content, start, lineEnd, PLAYER_PREFIX_BYTES)) {
+                int nameStart = start + PLAYER_PREFIX_BYTES.length;
+                int nameEnd = nameStart;
+                while (nameEnd < lineEnd && content[nameEnd] != '|') nameEnd++;
+                index.put(new String(content, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8), location(start, lineEnd - start));
+            }
+            start = end + 1;
+        }
+        return index;
+    }
+
+    private static boolean startsWith(byte[] content, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (content[start + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static long location(long offset, int length) {
+        return offset << 24 | length;
+    }
+
+    @Override
+    public JSONDatabase.PlayerData read(String playerName) {
+        JSONDatabase.PlayerData playerData = players.get(playerName);
+        if (playerData != null || deleted.contains(playerName)) return playerData;
+
+        byte[] line = readLine(playerName);
+        if (line == null) return null;
+
+        playerData = parsePlayerLine(new String(line, StandardCharsets.UTF_8));
+        if (playerData == null) return null;
+
+        parsed.incrementAndGet();
+        JSONDatabase.PlayerData existing = players.putIfAbsent(playerName, playerData);
+        if (existing != null) return existing;
+        if (deleted.contains(playerName)) {
+            players.remove(playerName, playerData);
+            return null;
+        }
+        return playerData;
+    }
+
+    private byte[] readLine(String playerName) {
+        synchronized (snapshotLock) {
+            Long location = index.get(playerName);
+            if (location == null || snapshotChannel == null) return null;
+
+            ByteBuffer line = ByteBuffer.allocate((int) (location & 0xFFFFFF));
+            try {
+                readFully(snapshotChannel, line, location >>> 24);
+            } catch (IOException e) {
+                System.out.println("Error reading player " + playerName + ": " + e.getMessage());
+                return null;
+            }
+            return line.array();
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(String playerName) {
+        return players.containsKey(playerName) || (!deleted.contains(playerName) && index.containsKey(playerName));
+    }
+
+    @Override
+    public String validate(String playerName, JSONDatabase.PlayerData playerData) {
+        if (playerName.isEmpty() || containsAny(playerName, "|\r\n")) return "name must not be empty or contain | or line breaks";
+        for (String item : playerData.inventory.keySet()) {
+            if (item.isEmpty() || containsAny(item, "|:,\r\n")) return "item name " + item + " must not be empty or contain | : , or line breaks";
+        }
+        return null;
+    }
+
+    private static boolean containsAny(String text, String characters) {
+        for (int i = 0; i < characters.length(); i++) {
+            if (text.indexOf(characters.charAt(i)) >= 0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<String> names() {
+        Set<String> names = new HashSet<>(index.keySet());
+        names.removeAll(deleted);
+        names.addAll(players.keySet());
+        return names;
+    }
+
+    Map<String, JSONDatabase.PlayerData> readAll() {
+        Map<String, JSONDatabase.PlayerData> all = new LinkedHashMap<>();
+        for (String playerName : names()) {
+            JSONDatabase.PlayerData playerData = read(playerName);
+            if (playerData != null) {
+                all.put(playerName, playerData);
+            }
+        }
+        return all;
+    }
+
+    @Override
+    public synchronized void write(Map<String, JSONDatabase.PlayerData> changes) throws IOException {
+        if (lock == null) throw new IOException(file + " is not open");
+
+        apply(changes);
+        writeSnapshot(generateSnapshot());
+    }
+
+    void apply(Map<String, JSONDatabase.PlayerData> changes) {
+        for (Map.Entry<String, JSONDatabase.PlayerData> change : changes.entrySet()) {
+            if (change.getValue() == JSONDatabase.DELETED) {
+                remove(change.getKey());
+            } else {
+                replace(change.getKey(), change.getValue());
+            }
+        }
+    }
+
+    void replace(String playerName, JSONDatabase.PlayerData playerData) {
+        players.put(playerName, playerData);
+        deleted.remove(playerName);
+    }
+
+    void remove(String playerName) {
+        deleted.add(playerName);
+        players.remove(playerName);
+    }
+
+    @Override
+    public void close() {
+        synchronized (snapshotLock) {
+            closeSnapshotChannel();
+        }
+        synchronized (this) {
+            if (lock != null) {
+                lock.release();
+                lock = null;
+            }
+        }
+    }
+
+    @Override
+    public String summarize() {
+        return "engine=text indexed=" + index.size() + " parsed=" + parsed.get() + " snapshots=" + snapshots.get();
+    }
+
+    Snapshot generateSnapshot() throws IOException {
+        Map<String, Long> current;
+        Map<String, JSONDatabase.PlayerData> loaded;
+        ByteBuffer old;
+        synchronized (snapshotLock) {
+            current = index;
+            loaded = new HashMap<>(players);
+            old = ByteBuffer.allocate(snapshotChannel != null ? (int) snapshotChannel.size() : 0);
+            if (snapshotChannel != null) {
+                readFully(snapshotChannel, old, 0);
+            }
+        }
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream(Math.max(old.capacity(), 4096));
+        content.writeBytes(HEADER.getBytes(StandardCharsets.UTF_8));
+        Map<String, Long> next = new HashMap<>();
+        for (Map.Entry<String, Long> entry : current.entrySet()) {
+            String playerName = entry.getKey();
+            if (loaded.containsKey(playerName) || deleted.contains(playerName)) continue;
+
+            long location = entry.getValue();
+            int length = (int) (location & 0xFFFFFF);
+            next.put(playerName, location(content.size(), length));
+            content.write(old.array(), (int) (location >>> 24), length);
+            content.write('\n');
+        }
+        for (Map.Entry<String, JSONDatabase.PlayerData> entry : loaded.entrySet()) {
+            byte[] line = formatPlayerLine(entry.getKey(), entry.getValue()).getBytes(StandardCharsets.UTF_8);
+            next.put(entry.getKey(), location(content.size(), line.length));
+            content.writeBytes(line);
+            content.write('\n');
+        }
+        return new Snapshot(content.toByteArray(), next);
+    }
+
+    void writeSnapshot(Snapshot snapshot) throws IOException {
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot.content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        synchronized (snapshotLock) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            install(snapshot.index);
+        }
+        snapshots.incrementAndGet();
+    }
+
+    private void install(Map<String, Long> next) throws IOException {
+        synchronized (snapshotLock) {
+            closeSnapshotChannel();
+            snapshotChannel = FileChannel.open(file, StandardOpenOption.READ);
+            index = next;
+            deleted.removeIf(playerName -> !next.containsKey(playerName));
+        }
+    }
+
+    private void closeSnapshotChannel() {
+        if (snapshotChannel == null) return;
+
+        try {
+            snapshotChannel.close();
+        } catch (IOException ignored) {
+        }
+        snapshotChannel = null;
+    }
+
+    static String formatPlayerLine(String playerName, JSONDatabase.PlayerData playerData) {
+        StringBuilder text = new StringBuilder(PLAYER_PREFIX);
+        text.append(playerName).append("|");
+        text.append(playerData.money).append("|");
+        text.append(playerData.level).append("|");
+        text.append(playerData.experience).append("|");
+
+        if (playerData.inventory != null && !playerData.inventory.isEmpty()) {
+            boolean first = true;
+            for (Map.Entry<String, Integer> item : playerData.inventory.entrySet()) {
+                if (!first) text.append(",");
+                text.append(item.getKey()).append(":").append(item.getValue());
+                first = false;
+            }
+        }
+        return text.toString();
+    }
+
+    static JSONDatabase.PlayerData parsePlayerLine(String line) {
+        try {
+            String[] parts = line.trim().substring(PLAYER_PREFIX.length()).split("\\|");
+            if (parts.length < 4) return null;
+
+            Map<String, Integer> inventory = new HashMap<>();
+            if (parts.length > 4 && !parts[4].isEmpty()) {
+                for (String item : parts[4].split(",")) {
+                    String[] itemParts = item.split(":");
+                    if (itemParts.length == 2) {
+                        inventory.put(itemParts[0], Integer.parseInt(itemParts[1]));
+                    }
+                }
+            }
+            return new JSONDatabase.PlayerData(parts[0], Integer.parseInt(parts[1]), inventory,
+                    Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        } catch (NumberFormatException e) {
+            System.out.println("Error parsing player line: " + e.getMessage());
+            return null;
+        }
+    }
+}
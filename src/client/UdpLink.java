@@ -0,0 +1,101 @@
+package client;
+
+import common.BinaryProtocol;
+import common.GameConfig;
+import common.PacketSequence;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.function.Consumer;
+
+public class UdpLink implements Runnable {
+    private static final int HELLO_ATTEMPTS = 10;
+    private static final long HELLO_INTERVAL_MS = 200;
+
+    private final DatagramChannel channel;
+    private final long token;
+    private final Consumer<ByteBuffer> onFrame;
+    private final PacketSequence received = new PacketSequence();
+    private int sendSeq = 0;
+    private volatile boolean active = false;
+
+    public UdpLink(InetSocketAddress server, long token, Consumer<ByteBuffer> onFrame) throws IOException {
+        this.channel = DatagramChannel.open();
+        this.channel.connect(server);
+        this.token = token;
+        this.onFrame = onFrame;
+    }
+
+    public void start() {
+        Thread receiver = new Thread(this, "udp-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+
+        Thread hello = new Thread(this::sayHello, "udp-hello");
+        hello.setDaemon(true);
+        hello.start();
+    }
+
+    private void sayHello() {
+        try {
+            for (int i = 0; i < HELLO_ATTEMPTS && !active && channel.isOpen(); i++) {
+                send(BinaryProtocol.encodeUdpHello(token));
+                Thread.sleep(HELLO_INTERVAL_MS);
+            }
+        } catch (InterruptedException ignored) {
+        }
+        if (!active) {
+            System.out.println("No UDP reply from server, snapshots stay on TCP");
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public synchronized void send(byte[] frame) {
+        try {
+            channel.write(ByteBuffer.wrap(BinaryProtocol.encodeDatagram(sendSeq++, frame)));
+        } catch (IOException e) {
+            System.out.println("UDP send failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocate(GameConfig.MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.read(buffer);
+                buffer.flip();
+                if (buffer.remaining() < 5 || !received.accept(buffer.getInt())) continue;
+
+                active = true;
+                byte[] frame = new byte[buffer.remaining()];
+                buffer.get(frame);
+                onFrame.accept(ByteBuffer.wrap(frame));
+            } catch (PortUnreachableException e) {
+            } catch (IOException e) {
+                if (channel.isOpen()) {
+                    System.out.println("UDP receive failed: " + e.getMessage());
+                }
+                break;
+            }
+        }
+    }
+
+    public PacketSequence getReceived() {
+        return received;
+    }
+
+    public void close() {
+        active = false;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
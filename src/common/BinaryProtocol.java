@@ -0,0 +1,336 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class BinaryProtocol {
+    public static final int VERSION = 5;
+    public static final String HELLO_BINARY = "HELLO:BINARY:" + VERSION;
+    public static final String HELLO_TEXT = "HELLO:TEXT";
+    public static final int MAX_FRAME_SIZE = 1024 * 1024;
+    public static final int MAX_INBOUND_FRAME_SIZE = 64 * 1024;
+
+    public static final byte OP_SNAPSHOT = 1;
+    public static final byte OP_ACK = 2;
+    public static final byte OP_MOVE = 3;
+    public static final byte OP_STOP = 4;
+    public static final byte OP_ATTACK = 5;
+    public static final byte OP_MONEY = 6;
+    public static final byte OP_CHICKEN_ATTACK = 7;
+    public static final byte OP_INPUT = 8;
+    public static final byte OP_UDP_HELLO = 9;
+    public static final byte OP_MIGRATE = 10;
+    public static final byte OP_PROFILE = 11;
+
+    public static final byte TYPE_PLAYER = 1;
+    public static final byte TYPE_CHICKEN = 2;
+
+    private static final String[] DIRECTIONS = { "up", "down", "left", "right" };
+    private static final String[] PLAYER_STATES = { "idle", "run", "attack1", "attack2" };
+    private static final String[] CHICKEN_STATES = { "idle", "hit", "dead" };
+    private static final String[] GHOST_STATES = { "idle" };
+
+    public static ByteBuffer allocateFrame(byte opcode, int payloadSize) {
+        ByteBuffer frame = ByteBuffer.allocate(5 + payloadSize);
+        frame.putInt(1 + payloadSize);
+        frame.put(opcode);
+        return frame;
+    }
+
+    public static byte[] encodeSimple(byte opcode) {
+        return allocateFrame(opcode, 0).array();
+    }
+
+    public static byte[] encodeMove(String direction) {
+        ByteBuffer frame = allocateFrame(OP_MOVE, 1);
+        frame.put(indexOf(DIRECTIONS, direction));
+        return frame.array();
+    }
+
+    public static String decodeMove(ByteBuffer payload) {
+        return valueAt(DIRECTIONS, payload.get());
+    }
+
+    public static byte[] encodeInput(int seq, String direction) {
+        ByteBuffer frame = allocateFrame(OP_INPUT, 5);
+        frame.putInt(seq);
+        frame.put(direction != null ? indexOf(DIRECTIONS, direction) : -1);
+        return frame.array();
+    }
+
+    public static String decodeInputDirection(ByteBuffer payload) {
+        byte index = payload.get();
+        return index != -1 ? valueAt(DIRECTIONS, index) : null;
+    }
+
+    public static byte[] encodeInt(byte opcode, int value) {
+        ByteBuffer frame = allocateFrame(opcode, 4);
+        frame.putInt(value);
+        return frame.array();
+    }
+
+    public static byte[] encodeChickenAttack(int entityId) {
+        return encodeInt(OP_CHICKEN_ATTACK, entityId);
+    }
+
+    public static byte[] encodeUdpHello(long token) {
+        ByteBuffer frame = allocateFrame(OP_UDP_HELLO, 8);
+        frame.putLong(token);
+        return frame.array();
+    }
+
+    public static byte[] encodeMigrate(String state) {
+        return encodeString(OP_MIGRATE, state);
+    }
+
+    public static String decodeMigrate(ByteBuffer payload) {
+        return readString(payload);
+    }
+
+    public static byte[] encodeProfile(String profile) {
+        return encodeString(OP_PROFILE, profile);
+    }
+
+    public static String decodeProfile(ByteBuffer payload) {
+        return readString(payload);
+    }
+
+    private static byte[] encodeString(byte opcode, String value) {
+        ByteBuffer frame = allocateFrame(opcode, 2 + value.getBytes(StandardCharsets.UTF_8).length);
+        writeString(frame, value);
+        return frame.array();
+    }
+
+    public static byte[] encodeDatagram(int packetSeq, byte[] frame) {
+        ByteBuffer datagram = ByteBuffer.allocate(frame.length);
+        datagram.putInt(packetSeq);
+        datagram.put(frame, 4, frame.length - 4);
+        return datagram.array();
+    }
+
+    public static final int CHICKEN_RECORD_SIZE = 1 + 4 + 2 + 2 + 1 + 1 + 1 + 1 + 8 + 1;
+    public static final int GHOST_RECORD_SIZE = 2 + 2 + 1 + 8 + 1 + 1;
+
+    public static int playerRecordSize(Player player) {
+        return 1 + 4 + 2 + player.id.getBytes(StandardCharsets.UTF_8).length + 2 + 2 + 1 + 1 + 4;
+    }
+
+    public static void writePlayer(ByteBuffer buffer, Player player) {
+        buffer.put(TYPE_PLAYER);
+        buffer.putInt(player.entityId);
+        writeString(buffer, player.id);
+        buffer.putShort((short) player.x);
+        buffer.putShort((short) player.y);
+        buffer.put(indexOf(DIRECTIONS, player.direction));
+        buffer.put(indexOf(PLAYER_STATES, player.state));
+        buffer.putInt(player.money);
+    }
+
+    public static Player readPlayer(ByteBuffer buffer) {
+        buffer.get();
+        int entityId = buffer.getInt();
+        String id = readString(buffer);
+        Player player = new Player(id, buffer.getShort(), buffer.getShort());
+        player.entityId = entityId;
+        player.direction = valueAt(DIRECTIONS, buffer.get());
+        player.state = valueAt(PLAYER_STATES, buffer.get());
+        player.money = buffer.getInt();
+        return player;
+    }
+
+    public static void writeChicken(ByteBuffer buffer, Chicken chicken) {
+        buffer.put(TYPE_CHICKEN);
+        buffer.putInt(chicken.entityId);
+        buffer.putShort((short) chicken.x);
+        buffer.putShort((short) chicken.y);
+        buffer.put(indexOf(DIRECTIONS, chicken.direction));
+        buffer.put((byte) (chicken.isAlive ? 1 : 0));
+        buffer.put((byte) chicken.health);
+        buffer.put(indexOf(CHICKEN_STATES, chicken.state));
+        buffer.putLong(chicken.deathTime);
+        buffer.put((byte) chicken.hitFrame);
+    }
+
+    public static Chicken readChicken(ByteBuffer buffer) {
+        buffer.get();
+        int entityId = buffer.getInt();
+        Chicken chicken = new Chicken(buffer.getShort(), buffer.getShort());
+        chicken.entityId = entityId;
+        chicken.direction = valueAt(DIRECTIONS, buffer.get());
+        chicken.isAlive = buffer.get() != 0;
+        chicken.health = buffer.get();
+        chicken.state = valueAt(CHICKEN_STATES, buffer.get());
+        chicken.deathTime = buffer.getLong();
+        chicken.hitFrame = buffer.get();
+        return chicken;
+    }
+
+    public static void writeGhost(ByteBuffer buffer, Ghost ghost) {
+        buffer.putShort((short) ghost.x);
+        buffer.putShort((short) ghost.y);
+        buffer.put((byte) ghost.animationFrame);
+        buffer.putLong(ghost.spawnTime);
+        buffer.put((byte) (ghost.isVisible ? 1 : 0));
+        buffer.put(indexOf(GHOST_STATES, ghost.state));
+    }
+
+    public static Ghost readGhost(ByteBuffer buffer) {
+        Ghost ghost = new Ghost(buffer.getShort(), buffer.getShort());
+        ghost.animationFrame = buffer.get();
+        ghost.spawnTime = buffer.getLong();
+        ghost.isVisible = buffer.get() != 0;
+        ghost.state = valueAt(GHOST_STATES, buffer.get());
+        return ghost;
+    }
+
+    public static Map<String, byte[]> captureRecords(Collection<Player> players, List<Chicken> chickens) {
+        Map<String, byte[]> records = new LinkedHashMap<>();
+        for (Player p : players) {
+            ByteBuffer buffer = ByteBuffer.allocate(playerRecordSize(p));
+            writePlayer(buffer, p);
+            records.put(SnapshotCodec.PLAYER_PREFIX + p.entityId, buffer.array());
+        }
+        for (Chicken chicken : chickens) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHICKEN_RECORD_SIZE);
+            writeChicken(buffer, chicken);
+            records.put(SnapshotCodec.CHICKEN_PREFIX + chicken.entityId, buffer.array());
+        }
+        return records;
+    }
+
+    public static String recordKey(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        byte type = buffer.get();
+        String prefix = type == TYPE_PLAYER ? SnapshotCodec.PLAYER_PREFIX : SnapshotCodec.CHICKEN_PREFIX;
+        return prefix + buffer.getInt();
+    }
+
+    public static byte[] encodeSnapshot(int seq, int baseSeq, Map<String, byte[]> base, Map<String, byte[]> current) {
+        List<byte[]> upserts = new ArrayList<>();
+        List<byte[]> removes = new ArrayList<>();
+        int size = 4 + 4 + 4 + 2 + 2;
+
+        for (Map.Entry<String, byte[]> entry : current.entrySet()) {
+            byte[] baseRecord = base != null ? base.get(entry.getKey()) : null;
+            if (!Arrays.equals(baseRecord, entry.getValue())) {
+                upserts.add(entry.getValue());
+                size += 2 + entry.getValue().length;
+            }
+        }
+        if (base != null) {
+            for (String key : base.keySet()) {
+                if (!current.containsKey(key)) {
+                    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                    removes.add(keyBytes);
+                    size += 2 + keyBytes.length;
+                }
+            }
+        }
+
+        ByteBuffer frame = allocateFrame(OP_SNAPSHOT, size);
+        frame.putInt(seq);
+        frame.putInt(baseSeq);
+        frame.putInt(0);
+        frame.putShort((short) upserts.size());
+        for (byte[] record : upserts) {
+            frame.putShort((short) record.length);
+            frame.put(record);
+        }
+        frame.putShort((short) removes.size());
+        for (byte[] key : removes) {
+            frame.putShort((short) key.length);
+            frame.put(key);
+        }
+        return frame.array();
+    }
+
+    public static byte[] withInputAck(byte[] snapshotFrame, int inputAck) {
+        byte[] frame = snapshotFrame.clone();
+        ByteBuffer.wrap(frame).putInt(4 + 1 + 4 + 4, inputAck);
+        return frame;
+    }
+
+    public static Map<String, byte[]> applySnapshot(Map<String, byte[]> base, ByteBuffer payload) {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        if (base != null) {
+            result.putAll(base);
+        }
+
+        int upserts = payload.getShort() & 0xFFFF;
+        for (int i = 0; i < upserts; i++) {
+            byte[] record = new byte[payload.getShort() & 0xFFFF];
+            payload.get(record);
+            result.put(recordKey(record), record);
+        }
+        int removes = payload.getShort() & 0xFFFF;
+        for (int i = 0; i < removes; i++) {
+            result.remove(readString(payload));
+        }
+        return result;
+    }
+
+    public static ByteBuffer readFrame(DataInputStream in) throws IOException {
+        return readFrame(in, MAX_FRAME_SIZE);
+    }
+
+    public static ByteBuffer readFrame(DataInputStream in, int maxSize) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > maxSize) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return ByteBuffer.wrap(frame);
+    }
+
+    public static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Cannot encode " + value + ", expected one of " + Arrays.toString(values));
+    }
+
+    private static String valueAt(String[] values, byte index) {
+        if (index < 0 || index >= values.length) {
+            throw new IllegalArgumentException("Invalid index " + index + ", expected 0-" + (values.length - 1));
+        }
+        return values[index];
+    }
+
+    public static boolean isDirection(String direction) {
+        return Arrays.asList(DIRECTIONS).contains(direction);
+    }
+}
@@ -5,7 +5,6 @@ import java.util.Random;
 public class Chicken {
     public int x, y;
     public String direction = "right";
-    public int animationFrame = 0;
     public long lastMoveTime = 0;
     public long lastAnimationTime = 0;
     public boolean isAlive = true;
@@ -20,6 +19,7 @@ public class Chicken {
     public int hitFrame = 0;
     public long lastHitTime = 0;
     public int originalX, originalY; 
+    public int entityId = -1;
     
     private Random random = new Random();
     
@@ -55,14 +55,10 @@ public class Chicken {
         if (currentTime - lastAnimationTime > (1000 / animationSpeed)) {
             if (state.equals("hit")) {
                 hitFrame++;
-                System.out.println("Chicken hit animation frame: " + hitFrame + "/" + GameConfig.CHICKEN_HIT_FRAMES);
                 if (hitFrame >= GameConfig.CHICKEN_HIT_FRAMES) {
                     state = "idle";
                     hitFrame = 0;
-                    System.out.println("Chicken hit animation finished, returning to idle");
                 }
-            } else {
-                animationFrame = (animationFrame + 1) % animationFrames;
             }
             lastAnimationTime = currentTime;
         }
@@ -81,6 +77,10 @@ public class Chicken {
         checkChickenCollision(allChickens);
     }
     
+    public int animationFrame(long currentTime) {
+        return Math.floorMod(currentTime / (1000 / animationSpeed) + entityId, animationFrames);
+    }
+    
     private void checkChickenCollision(java.util.List<Chicken> allChickens) {
         for (Chicken otherChicken : allChickens) {
             if (otherChicken != this && otherChicken.isAlive && !otherChicken.state.equals("dead")) {
@@ -145,7 +145,6 @@ public class Chicken {
         lastMoveTime = System.currentTimeMillis();
         lastAnimationTime = System.currentTimeMillis();
         lastDirectionChange = System.currentTimeMillis();
-        animationFrame = 0;
         hitFrame = 0;
     }
     
@@ -157,23 +156,48 @@ public class Chicken {
         return GameConfig.CHICKEN_REWARD;
     }
     
+    public Chicken copy() {
+        Chicken copy = new Chicken(x, y);
+        copy.direction = direction;
+        copy.lastMoveTime = lastMoveTime;
+        copy.lastAnimationTime = lastAnimationTime;
+        copy.isAlive = isAlive;
+        copy.health = health;
+        copy.maxHealth = maxHealth;
+        copy.lastDirectionChange = lastDirectionChange;
+        copy.moveSpeed = moveSpeed;
+        copy.state = state;
+        copy.deathTime = deathTime;
+        copy.hitFrame = hitFrame;
+        copy.lastHitTime = lastHitTime;
+        copy.originalX = originalX;
+        copy.originalY = originalY;
+        copy.entityId = entityId;
+        return copy;
+    }
+    
     @Override
     public String toString() {
-        return "Chicken," + x + "," + y + "," + direction + "," + animationFrame + "," + isAlive + "," + health + "," + state + "," + deathTime;
+        return "Chicken," + x + "," + y + "," + direction + "," + isAlive + "," + health + "," + state + "," + deathTime + "," + hitFrame + "," + entityId;
     }
     
     public static Chicken fromString(String data) {
         String[] parts = data.split(",");
         Chicken chicken = new Chicken(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
         chicken.direction = parts[3];
-        chicken.animationFrame = Integer.parseInt(parts[4]);
-        chicken.isAlive = Boolean.parseBoolean(parts[5]);
-        chicken.health = Integer.parseInt(parts[6]);
+        chicken.isAlive = Boolean.parseBoolean(parts[4]);
+        chicken.health = Integer.parseInt(parts[5]);
+        if (parts.length > 6) {
+            chicken.state = parts[6];
+        }
         if (parts.length > 7) {
-            chicken.state = parts[7];
+            chicken.deathTime = Long.parseLong(parts[7]);
         }
         if (parts.length > 8) {
-            chicken.deathTime = Long.parseLong(parts[8]);
+            chicken.hitFrame = Integer.parseInt(parts[8]);
+        }
+        if (parts.length > 9) {
+            chicken.entityId = Integer.parseInt(parts[9]);
         }
         return chicken;
     }
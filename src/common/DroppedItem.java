@@ -1,6 +1,9 @@
 package common;
 
 import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
 import javax.swing.*;
 
 public class DroppedItem {
@@ -10,10 +13,22 @@ public class DroppedItem {
     public long dropTime;
     public boolean isCollected;
     public Image itemImage;
+    public int entityId = -1;
     
     
     public static final int ITEM_SIZE = 4;
     
+    public static Map<String, Integer> rollChickenLoot(Random random) {
+        Map<String, Integer> loot = new LinkedHashMap<>();
+        if (random.nextDouble() < 0.8) {
+            loot.put("Feather", 1 + random.nextInt(3));
+        }
+        if (random.nextDouble() < 0.6) {
+            loot.put("Coin", 1 + random.nextInt(2));
+        }
+        return loot;
+    }
+    
     public DroppedItem(int x, int y, String itemName, int quantity) {
         this.x = x;
         this.y = y;
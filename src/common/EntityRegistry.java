@@ -0,0 +1,109 @@
+package common;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+public class EntityRegistry<T> {
+    private Object[] slots = new Object[16];
+    private int[] freeIds = new int[16];
+    private long[] freedAt = new long[16];
+    private int freeHead = 0;
+    private int freeCount = 0;
+    private int nextId = 0;
+    private int size = 0;
+    private final int reuseDelay;
+    private long clock = 0;
+
+    public EntityRegistry() {
+        this(0);
+    }
+
+    public EntityRegistry(int reuseDelay) {
+        this.reuseDelay = reuseDelay;
+    }
+
+    public void advance() {
+        clock++;
+    }
+
+    public int add(T entity) {
+        int id;
+        if (freeCount > 0 && clock - freedAt[freeHead] >= reuseDelay) {
+            id = freeIds[freeHead];
+            freeHead = (freeHead + 1) % freeIds.length;
+            freeCount--;
+        } else {
+            id = nextId++;
+        }
+        ensureCapacity(id);
+        slots[id] = entity;
+        size++;
+        return id;
+    }
+
+    public void put(int id, T entity) {
+        ensureCapacity(id);
+        if (slots[id] == null) {
+            size++;
+        }
+        slots[id] = entity;
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        return id >= 0 && id < nextId ? (T) slots[id] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T remove(int id) {
+        if (id < 0 || id >= nextId || slots[id] == null) return null;
+
+        T entity = (T) slots[id];
+        slots[id] = null;
+        size--;
+        if (freeCount == freeIds.length) {
+            int[] ids = new int[freeIds.length * 2];
+            long[] at = new long[ids.length];
+            for (int i = 0; i < freeCount; i++) {
+                ids[i] = freeIds[(freeHead + i) % freeIds.length];
+                at[i] = freedAt[(freeHead + i) % freeIds.length];
+            }
+            freeIds = ids;
+            freedAt = at;
+            freeHead = 0;
+        }
+        int tail = (freeHead + freeCount) % freeIds.length;
+        freeIds[tail] = id;
+        freedAt[tail] = clock;
+        freeCount++;
+        return entity;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0, nextId, null);
+        freeHead = 0;
+        freeCount = 0;
+        nextId = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<T> action) {
+        for (int i = 0; i < nextId; i++) {
+            if (slots[i] != null) {
+                action.accept((T) slots[i]);
+            }
+        }
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, id + 1));
+        }
+    }
+}
@@ -2,6 +2,10 @@ package common;
 
 public class GameConfig {
     public static final int PORT = 12345;
+    public static final int UDP_PORT = PORT + 1;
+    public static final int MAX_DATAGRAM_SIZE = 1200;
+    public static final int SERVER_TICK_RATE = 30;
+    public static final int SNAPSHOT_HISTORY = 32;
     public static final int TILE_SIZE = 32;
     public static final int MAP_WIDTH_TILES = 50;
     public static final int MAP_HEIGHT_TILES = 50;
@@ -11,6 +15,7 @@ public class GameConfig {
     public static final int ANIMATION_FRAMES = 8;
     public static final int ANIMATION_SPEED = 12;
     public static final int MOVE_SPEED = 1;
+    public static final int MOVE_SPEED_PER_SECOND = 60;
     public static final int ATTACK_DURATION = 400;
     public static final int ATTACK_COOLDOWN = 350;
     public static final int ATTACK_RANGE = 13;
@@ -32,6 +37,7 @@ public class GameConfig {
     
     
     public static final int RENDER_DISTANCE = 60; 
+    public static final int INTEREST_CELL_SIZE = 64;
     public static final int VIEW_BUFFER = 60; 
     public static final boolean DEBUG_DISTANCE = false; 
     
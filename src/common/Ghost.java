@@ -6,6 +6,7 @@ public class Ghost {
     public long spawnTime;
     public boolean isVisible;
     public String state;
+    public int entityId = -1;
     
     public Ghost(int x, int y) {
         this.x = x;
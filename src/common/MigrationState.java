@@ -0,0 +1,35 @@
+package common;
+
+public class MigrationState {
+    public static final String GATEWAY_PREFIX = "GATEWAY:";
+    public static final String RESTORE_PREFIX = "RESTORE:";
+    public static final String MIGRATE_PREFIX = "MIGRATE:";
+
+    public final int inputSeq;
+    public final String moveDirection;
+    public final Player player;
+    public final String profile;
+
+    public MigrationState(int inputSeq, String moveDirection, Player player, String profile) {
+        this.inputSeq = inputSeq;
+        this.moveDirection = moveDirection;
+        this.player = player;
+        this.profile = profile;
+    }
+
+    public int centerX() {
+        return player.x + GameConfig.PLAYER_SIZE / 2;
+    }
+
+    @Override
+    public String toString() {
+        return inputSeq + ":" + (moveDirection != null ? moveDirection : "none") + ":" + player + (profile != null ? ";" + profile : "");
+    }
+
+    public static MigrationState fromString(String data) {
+        String[] parts = data.split(":", 3);
+        String[] player = parts[2].split(";", 2);
+        return new MigrationState(Integer.parseInt(parts[0]), parts[1].equals("none") ? null : parts[1], Player.fromString(player[0]),
+                player.length > 1 ? player[1] : null);
+    }
+}
@@ -0,0 +1,36 @@
+package common;
+
+public class PacketSequence {
+    private int highest = -1;
+    private long received = 0;
+    private long lost = 0;
+    private long stale = 0;
+
+    public synchronized boolean accept(int seq) {
+        if (seq <= highest) {
+            stale++;
+            return false;
+        }
+        lost += seq - highest - 1;
+        highest = seq;
+        received++;
+        return true;
+    }
+
+    public synchronized long getReceived() {
+        return received;
+    }
+
+    public synchronized long getLost() {
+        return lost;
+    }
+
+    public synchronized long getStale() {
+        return stale;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "received=" + received + ", lost=" + lost + ", stale=" + stale;
+    }
+}
@@ -8,6 +8,7 @@ public class Player {
     public long lastAttackTime = 0;
     public boolean canAttack = true;
     public int money = 0;
+    public int entityId = -1;
 
     public Player(String id, int x, int y) {
         this.id = id;
@@ -16,6 +17,10 @@ public class Player {
     }
 
     public void move(String dir) {
+        move(dir, GameConfig.MOVE_SPEED);
+    }
+
+    public void move(String dir, int distance) {
         if (!state.equals("attack2")) {
             this.state = "run";
             this.direction = dir;
@@ -25,16 +30,16 @@ public class Player {
 
             switch (dir) {
                 case "up":
-                    newY -= GameConfig.MOVE_SPEED;
+                    newY -= distance;
                     break;
                 case "down":
-                    newY += GameConfig.MOVE_SPEED;
+                    newY += distance;
                     break;
                 case "left":
-                    newX -= GameConfig.MOVE_SPEED;
+                    newX -= distance;
                     break;
                 case "right":
-                    newX += GameConfig.MOVE_SPEED;
+                    newX += distance;
                     break;
             }
 
@@ -121,9 +126,20 @@ public class Player {
         this.money += amount;
     }
 
+    public Player copy() {
+        Player copy = new Player(id, x, y);
+        copy.direction = direction;
+        copy.state = state;
+        copy.lastAttackTime = lastAttackTime;
+        copy.canAttack = canAttack;
+        copy.money = money;
+        copy.entityId = entityId;
+        return copy;
+    }
+
     @Override
     public String toString() {
-        return id + "," + x + "," + y + "," + direction + "," + state + "," + money;
+        return id + "," + x + "," + y + "," + direction + "," + state + "," + money + "," + entityId;
     }
 
     public static Player fromString(String data) {
@@ -134,6 +150,9 @@ public class Player {
         if (parts.length > 5) {
             p.money = Integer.parseInt(parts[5]);
         }
+        if (parts.length > 6) {
+            p.entityId = Integer.parseInt(parts[6]);
+        }
         return p;
     }
 }
@@ -0,0 +1,95 @@
+package common;
+
+import java.util.*;
+
+public class SnapshotCodec {
+    public static final String PLAYER_PREFIX = "P.";
+    public static final String CHICKEN_PREFIX = "C.";
+    public static final int KEYFRAME = -1;
+
+    public static Map<String, String[]> capture(Collection<Player> players, List<Chicken> chickens) {
+        Map<String, String[]> entities = new LinkedHashMap<>();
+        for (Player p : players) {
+            entities.put(PLAYER_PREFIX + p.entityId, p.toString().split(","));
+        }
+        for (Chicken chicken : chickens) {
+            entities.put(CHICKEN_PREFIX + chicken.entityId, chicken.toString().split(","));
+        }
+        return entities;
+    }
+
+    public static String encode(int seq, int baseSeq, int inputAck, Map<String, String[]> base, Map<String, String[]> current) {
+        return header(seq, baseSeq, inputAck) + encodeBody(base, current);
+    }
+
+    public static String header(int seq, int baseSeq, int inputAck) {
+        return "SNAP:" + seq + ":" + baseSeq + ":" + inputAck + ":";
+    }
+
+    public static String encodeBody(Map<String, String[]> base, Map<String, String[]> current) {
+        StringBuilder sb = new StringBuilder();
+
+        for (Map.Entry<String, String[]> entry : current.entrySet()) {
+            String[] fields = entry.getValue();
+            String[] baseFields = base != null ? base.get(entry.getKey()) : null;
+
+            if (baseFields == null || baseFields.length != fields.length) {
+                sb.append('+').append(entry.getKey());
+                for (String field : fields) {
+                    sb.append(',').append(field);
+                }
+                sb.append(';');
+            } else if (!Arrays.equals(baseFields, fields)) {
+                sb.append('~').append(entry.getKey());
+                for (int i = 0; i < fields.length; i++) {
+                    if (!fields[i].equals(baseFields[i])) {
+                        sb.append(',').append(i).append('=').append(fields[i]);
+                    }
+                }
+                sb.append(';');
+            }
+        }
+
+        if (base != null) {
+            for (String key : base.keySet()) {
+                if (!current.containsKey(key)) {
+                    sb.append('-').append(key).append(';');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    public static Map<String, String[]> apply(Map<String, String[]> base, String body) {
+        Map<String, String[]> result = new LinkedHashMap<>();
+        if (base != null) {
+            result.putAll(base);
+        }
+
+        for (String entry : body.split(";")) {
+            if (entry.isEmpty()) continue;
+
+            char op = entry.charAt(0);
+            String[] parts = entry.substring(1).split(",");
+            String key = parts[0];
+
+            if (op == '+') {
+                result.put(key, Arrays.copyOfRange(parts, 1, parts.length));
+            } else if (op == '~') {
+                String[] previous = result.get(key);
+                if (previous == null) {
+                    throw new IllegalStateException("Delta for unknown entity " + key);
+                }
+                String[] fields = previous.clone();
+                for (int i = 1; i < parts.length; i++) {
+                    int eq = parts[i].indexOf('=');
+                    fields[Integer.parseInt(parts[i].substring(0, eq))] = parts[i].substring(eq + 1);
+                }
+                result.put(key, fields);
+            } else if (op == '-') {
+                result.remove(key);
+            }
+        }
+        return result;
+    }
+}
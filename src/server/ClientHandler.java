@@ -1,158 +1,129 @@
 package server;
 
-import common.Chicken;
-import common.GameConfig;
-import common.Player;
+import common.BinaryProtocol;
 import java.io.*;
 import java.net.*;
-import java.util.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 
-public class ClientHandler implements Runnable {
+public class ClientHandler implements Runnable, Connection {
     private Socket socket;
-    private PrintWriter out;
-    private BufferedReader in;
+    private OutputStream out;
+    private final OutboundQueue outbound = new OutboundQueue();
+    private DataInputStream in;
+    private final CountingInputStream counter;
     private String playerId;
-    private Map<String, Player> players;
-    private List<ClientHandler> clients;
-    private List<Chicken> globalChickens;
+    private SessionHandler protocol;
+    private final TransportMetrics metrics;
+    private ClientSession session;
 
-    public ClientHandler(Socket socket, Map<String, Player> players, List<ClientHandler> clients, List<Chicken> globalChickens) throws IOException {
+    public ClientHandler(Socket socket, SessionHandler protocol) throws IOException {
         this.socket = socket;
-        this.players = players;
-        this.clients = clients;
-        this.globalChickens = globalChickens;
-        this.out = new PrintWriter(socket.getOutputStream(), true);
-        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        this.protocol = protocol;
+        this.metrics = protocol.getTransportMetrics();
+        this.playerId = "P" + socket.getPort();
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.counter = new CountingInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.in = new DataInputStream(counter);
     }
 
     @Override
     public void run() {
-        try {
-            playerId = "P" + socket.getPort();
-            Player player = new Player(playerId, GameConfig.MAP_WIDTH / 2 +new Random().nextInt(30) , GameConfig.MAP_HEIGHT / 2 +new Random().nextInt(50));
-            players.put(playerId, player);
+        Thread.Builder writerBuilder = Thread.currentThread().isVirtual() ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        writerBuilder.name("writer-" + playerId).start(this::drainOutbound);
 
-            out.println("ID:" + playerId);
-            sendChickens();
-            broadcast();
+        try {
+            session = protocol.onConnect(this);
 
             String input;
-            while ((input = in.readLine()) != null) {
-                if (input.startsWith("MOVE:")) {
-                    String dir = input.split(":")[1];
-                    if (canMove(player, dir)) {
-                        player.move(dir);
-                        broadcast();
+            while ((input = BinaryProtocol.readLine(in)) != null) {
+                metrics.recordBytesIn(counter.drain());
+                if (input.startsWith("HELLO:")) {
+                    if (protocol.onHello(session, input)) {
+                        readFrames();
+                        break;
                     }
-                } else if (input.equals("STOP")) {
-                    player.stop();
-                    broadcast();
-                } else if (input.equals("ATTACK")) {
-                    player.attack();
-                    broadcast();
-                    broadcast();
-                } else if (input.startsWith("MONEY:")) {
-                    int money = Integer.parseInt(input.split(":")[1]);
-                    player.money = money;
-                    broadcast();
-                } else if (input.startsWith("CHICKEN_ATTACK:")) {
-                    
-                    String chickenData = input.split(":", 2)[1];
-                    handleChickenAttack(chickenData);
+                } else {
+                    protocol.onMessage(session, input);
                 }
             }
+        } catch (EOFException e) {
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
-            players.remove(playerId);
-            clients.remove(this);
-            broadcast();
+            if (session != null) {
+                protocol.onDisconnect(session);
+            }
+            close();
         }
     }
 
-    void send(String msg) {
-        out.println(msg);
+    private void readFrames() throws IOException {
+        while (true) {
+            ByteBuffer frame = BinaryProtocol.readFrame(in, BinaryProtocol.MAX_INBOUND_FRAME_SIZE);
+            metrics.recordBytesIn(counter.drain());
+            protocol.onFrame(session, frame);
+        }
     }
 
-    private void broadcast() {
-        for (Player p : players.values()) {
-            p.updateState();
+    private void drainOutbound() {
+        try {
+            while (!outbound.isClosed()) {
+                byte[] data = outbound.take(1, TimeUnit.SECONDS);
+                while (data != null) {
+                    out.write(data);
+                    metrics.recordBytesOut(data.length);
+                    data = outbound.poll();
+                }
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            close();
         }
+    }
 
-        StringBuilder sb = new StringBuilder();
-        for (Player p : players.values()) {
-            sb.append(p.toString()).append(";");
-        }
-        String msg = "PLAYERS:" + sb.toString();
+    @Override
+    public String getPlayerId() {
+        return playerId;
+    }
 
-        for (ClientHandler c : clients) {
-            c.send(msg);
-        }
+    @Override
+    public void send(String msg) {
+        sendBytes((msg + "\n").getBytes(StandardCharsets.UTF_8));
     }
 
-    private void sendChickens() {
-        StringBuilder sb = new StringBuilder();
-        for (Chicken chicken : globalChickens) {
-            sb.append(chicken.toString()).append(";");
+    @Override
+    public void sendBytes(byte[] bytes) {
+        if (!outbound.offer(bytes)) {
+            disconnectSlowConsumer();
         }
-        String msg = "CHICKENS:" + sb.toString();
-        send(msg);
     }
-    
-    private void handleChickenAttack(String chickenData) {
-        try {
-            Chicken attackedChicken = Chicken.fromString(chickenData);
-            
-            
-            for (Chicken globalChicken : globalChickens) {
-                int distance = GameConfig.calculateTopDownDistance(globalChicken.x, globalChicken.y, attackedChicken.x, attackedChicken.y);
-                
-                if (distance < GameConfig.CHICKEN_SIZE) {
-                    
-                    globalChicken.health = attackedChicken.health;
-                    globalChicken.isAlive = attackedChicken.isAlive;
-                    globalChicken.state = attackedChicken.state;
-                    globalChicken.hitFrame = attackedChicken.hitFrame;
-                    globalChicken.deathTime = attackedChicken.deathTime;
-                    globalChicken.lastHitTime = attackedChicken.lastHitTime;
-                    
-                    System.out.println("Updated global chicken: " + globalChicken.x + ", " + globalChicken.y + " Health: " + globalChicken.health + " Alive: " + globalChicken.isAlive + " State: " + globalChicken.state);
-                    
-                    
-                    broadcastChickenUpdate(globalChicken.toString());
-                    
-                    
-                    broadcastAllChickens();
-                    break;
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("Error handling chicken attack: " + e.getMessage());
+
+    @Override
+    public void sendSnapshot(byte[] bytes) {
+        if (!outbound.offerSnapshot(bytes)) {
+            disconnectSlowConsumer();
         }
     }
-    
-    private void broadcastChickenUpdate(String chickenData) {
-        String msg = "CHICKEN_UPDATE:" + chickenData;
-        for (ClientHandler c : clients) {
-            c.send(msg);
-        }
+
+    private void disconnectSlowConsumer() {
+        System.out.println("Disconnecting slow consumer " + playerId + " (" + outbound.getQueuedBytes() + " bytes queued)");
+        close();
     }
-    
-    private void broadcastAllChickens() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < globalChickens.size(); i++) {
-            if (i > 0) sb.append(";");
-            sb.append(globalChickens.get(i).toString());
-        }
-        String msg = "CHICKENS:" + sb.toString();
-        for (ClientHandler c : clients) {
-            c.send(msg);
-        }
+
+    @Override
+    public OutboundQueue getOutbound() {
+        return outbound;
     }
-    
 
-    private boolean canMove(Player player, String direction) {
-        return true;
+    @Override
+    public void close() {
+        outbound.close();
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
     }
 }
@@ -0,0 +1,61 @@
+package server;
+
+import common.GameConfig;
+import common.PacketSequence;
+import common.Player;
+import common.SnapshotCodec;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ClientSession {
+    public final Connection connection;
+    public final Player player;
+    boolean deltaSnapshots = false;
+    boolean binary = false;
+    int lastAckedSeq = SnapshotCodec.KEYFRAME;
+    int lastInputSeq = 0;
+    String moveDirection = null;
+    double moveRemainder = 0;
+    long udpToken = 0;
+    volatile SocketAddress udpAddress = null;
+    int udpSendSeq = 0;
+    final PacketSequence udpReceived = new PacketSequence();
+    Zone zone = null;
+    volatile ServerProtocol protocol = null;
+    volatile boolean disconnected = false;
+    int regionMinX = 0;
+    int regionMaxX = GameConfig.MAP_WIDTH;
+    boolean migrating = false;
+    PlayerProfile profile = null;
+    final Map<Integer, View<?>> views = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, View<?>> eldest) {
+            return size() > GameConfig.SNAPSHOT_HISTORY;
+        }
+    };
+
+    static class View<T> {
+        final int cell;
+        final Map<String, T> entities;
+
+        View(int cell, Map<String, T> entities) {
+            this.cell = cell;
+            this.entities = entities;
+        }
+    }
+
+    public ClientSession(Connection connection, Player player) {
+        this.connection = connection;
+        this.player = player;
+    }
+
+    public void send(String msg) {
+        connection.send(msg);
+    }
+
+    public void sendSnapshot(String msg) {
+        connection.sendSnapshot((msg + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
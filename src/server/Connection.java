@@ -0,0 +1,15 @@
+package server;
+
+public interface Connection {
+    String getPlayerId();
+
+    void send(String msg);
+
+    void sendBytes(byte[] data);
+
+    void sendSnapshot(byte[] data);
+
+    OutboundQueue getOutbound();
+
+    void close();
+}
@@ -3,31 +3,124 @@ package server;
 import common.*;
 import java.io.*;
 import java.net.*;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GameServer {
     private static final Map<String, Player> players = new HashMap<>();
-    private static final List<ClientHandler> clients = new ArrayList<>();
+    private static final List<ClientSession> clients = new ArrayList<>();
     private static final List<Chicken> globalChickens = new ArrayList<>();
 
     public static void main(String[] args) throws IOException {
+        ServerOptions options = new ServerOptions(args);
+        PlayerStore store = openPlayerStore(options);
+        String rooms = options.get("rooms", null);
+        if (rooms != null) {
+            startRooms(options, rooms.equals("true") ? "" : rooms, store);
+            return;
+        }
         
         createGlobalChickens();
+        ServerProtocol protocol = new ServerProtocol(players, clients, globalChickens);
+        protocol.setGatewayTrusted(options.getBoolean("gateway", false));
+        protocol.setPlayerStore(store);
+        if (options.getBoolean("udp", false)) {
+            UdpTransport udp = new UdpTransport(protocol, options.getInt("udp-port", GameConfig.UDP_PORT));
+            protocol.setUdpTransport(udp);
+            udp.start();
+        }
+        String[] zones = options.get("zones", "1x1").split("x");
+        protocol.setZones(Integer.parseInt(zones[0]), Integer.parseInt(zones[zones.length - 1]));
+        if (options.getBoolean("jmx", true)) {
+            protocol.getMetrics().register();
+            protocol.getTransportMetrics().register();
+        }
+        int metricsPort = options.getInt("metrics-port", 0);
+        if (metricsPort > 0) {
+            new MetricsHttpServer(protocol.getMetrics(), metricsPort).start();
+        }
+        ServerTick tick = new ServerTick(protocol, options.getInt("tick-rate", GameConfig.SERVER_TICK_RATE));
+        tick.start(options.getInt("tick-stats", 0));
+
+        accept(options, protocol);
+    }
+
+    private static PlayerStore openPlayerStore(ServerOptions options) throws IOException {
+        String path = options.get("player-store", PlayerStore.DEFAULT_FILE);
+        if (path.equals("none")) return null;
+
+        PlayerStore store = new PlayerStore(Paths.get(path), options.getInt("store-flush-ms", 5000), options.getInt("store-batch", 64));
+        store.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(store::close, "player-store-shutdown"));
+        return store;
+    }
+
+    private static void startRooms(ServerOptions options, String names, PlayerStore store) throws IOException {
+        RoomManager rooms = new RoomManager(Arrays.asList(names.split(",")),
+                options.getInt("room-threads", Runtime.getRuntime().availableProcessors()),
+                options.getInt("tick-rate", GameConfig.SERVER_TICK_RATE), options.getInt("room-capacity", 64),
+                options.getInt("max-rooms", 256), options.getInt("tick-stats", 0), options.getBoolean("jmx", true));
+        rooms.setGatewayTrusted(options.getBoolean("gateway", false));
+        rooms.setPlayerStore(store);
+        if (options.getBoolean("udp", false)) {
+            UdpTransport udp = new UdpTransport(rooms, options.getInt("udp-port", GameConfig.UDP_PORT));
+            rooms.setUdpTransport(udp);
+            udp.start();
+        }
+        rooms.start();
+        int metricsPort = options.getInt("metrics-port", 0);
+        if (metricsPort > 0) {
+            new MetricsHttpServer(rooms::renderMetrics, metricsPort).start();
+        }
+        accept(options, rooms);
+    }
+
+    private static void accept(ServerOptions options, SessionHandler protocol) throws IOException {
+        int port = options.getInt("port", GameConfig.PORT);
+        InetAddress bindAddress = options.getBoolean("gateway", false) ? InetAddress.getLoopbackAddress() : null;
+        String core = options.get("core", "blocking");
+        if (core.equals("nio")) {
+            int loops = options.getInt("loops", Runtime.getRuntime().availableProcessors());
+            new NioGameServer(protocol, loops).start(new InetSocketAddress(bindAddress, port));
+            return;
+        }
         
-        try (ServerSocket serverSocket = new ServerSocket(GameConfig.PORT)) {
-            System.out.println("Server started on " + GameConfig.PORT);
-
-            while (true) {
-                Socket socket = serverSocket.accept();
-                ClientHandler handler = new ClientHandler(socket, players, clients, globalChickens);
-                clients.add(handler);
-                new Thread(handler).start();
+        String threads = options.get("threads", "platform");
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, bindAddress);
+             ExecutorService executor = createConnectionExecutor(threads)) {
+            System.out.println("Server started on " + port + " (" + threads + " threads)");
+            serve(serverSocket, protocol, executor);
+        }
+    }
+
+    public static ExecutorService createConnectionExecutor(String threads) {
+        if (threads.equals("virtual")) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory());
+    }
+
+    public static void serve(ServerSocket serverSocket, SessionHandler protocol, ExecutorService executor) throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                break;
             }
+            executor.execute(new ClientHandler(socket, protocol));
         }
     }
     
     private static void createGlobalChickens() {
         globalChickens.clear();
+        globalChickens.addAll(createChickens());
+    }
+
+    public static List<Chicken> createChickens() {
+        List<Chicken> chickens = new ArrayList<>();
         Random random = new Random();
         
         
@@ -44,8 +137,9 @@ public class GameServer {
             x = Math.max(0, Math.min(x, GameConfig.MAP_WIDTH - GameConfig.CHICKEN_SIZE));
             y = Math.max(0, Math.min(y, GameConfig.MAP_HEIGHT - GameConfig.CHICKEN_SIZE));
             
-            globalChickens.add(new Chicken(x, y));
+            chickens.add(new Chicken(x, y));
         }
+        return chickens;
     }
     
     public static List<Chicken> getGlobalChickens() {
@@ -0,0 +1,112 @@
+package server;
+
+import common.GameConfig;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Gateway {
+    final List<Backend> backends = new ArrayList<>();
+    final ExecutorService executor;
+    final AtomicInteger sessions = new AtomicInteger();
+    final AtomicLong migrations = new AtomicLong();
+    final AtomicLong failedMigrations = new AtomicLong();
+
+    static class Backend {
+        final int index;
+        final InetSocketAddress address;
+        final int minX;
+        final int maxX;
+
+        Backend(int index, InetSocketAddress address, int minX, int maxX) {
+            this.index = index;
+            this.address = address;
+            this.minX = minX;
+            this.maxX = maxX;
+        }
+
+        boolean owns(int x) {
+            return x >= minX && x < maxX;
+        }
+
+        @Override
+        public String toString() {
+            return address.getHostString() + ":" + address.getPort() + " x=[" + minX + "," + maxX + ")";
+        }
+    }
+
+    public Gateway(List<InetSocketAddress> addresses, ExecutorService executor) {
+        this.executor = executor;
+        for (int i = 0; i < addresses.size(); i++) {
+            int minX = GameConfig.MAP_WIDTH * i / addresses.size();
+            int maxX = GameConfig.MAP_WIDTH * (i + 1) / addresses.size();
+            backends.add(new Backend(i, addresses.get(i), minX, maxX));
+        }
+    }
+
+    Backend backendFor(int x) {
+        for (Backend backend : backends) {
+            if (backend.owns(x)) return backend;
+        }
+        return x < 0 ? backends.get(0) : backends.get(backends.size() - 1);
+    }
+
+    public void serve(ServerSocket serverSocket) throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                break;
+            }
+            socket.setTcpNoDelay(true);
+            executor.execute(new GatewaySession(this, socket));
+        }
+    }
+
+    public String summarizeAndReset() {
+        return String.format("sessions=%d migrations=%d failed=%d", sessions.get(), migrations.getAndSet(0), failedMigrations.getAndSet(0));
+    }
+
+    public static void main(String[] args) throws IOException {
+        ServerOptions options = new ServerOptions(args);
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String backend : options.get("backends", String.valueOf(GameConfig.PORT + 10)).split(",")) {
+            int colon = backend.lastIndexOf(':');
+            String host = colon >= 0 ? backend.substring(0, colon) : "localhost";
+            addresses.add(new InetSocketAddress(host, Integer.parseInt(backend.substring(colon + 1))));
+        }
+        int port = options.getInt("port", GameConfig.PORT);
+        String threads = options.get("threads", "platform");
+        int statsInterval = options.getInt("stats", 10);
+
+        try (ServerSocket serverSocket = new ServerSocket(port);
+             ExecutorService executor = GameServer.createConnectionExecutor(threads)) {
+            Gateway gateway = new Gateway(addresses, executor);
+            for (Backend backend : gateway.backends) {
+                System.out.println("Backend " + backend.index + ": " + backend);
+            }
+            if (statsInterval > 0) {
+                ScheduledExecutorService stats = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "gateway-stats");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                stats.scheduleAtFixedRate(() -> System.out.println("Gateway: " + gateway.summarizeAndReset()),
+                        statsInterval, statsInterval, TimeUnit.SECONDS);
+            }
+            System.out.println("Gateway started on " + port + " (" + threads + " threads, " + addresses.size() + " backends)");
+            gateway.serve(serverSocket);
+        }
+    }
+}
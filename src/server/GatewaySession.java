@@ -0,0 +1,301 @@
+package server;
+
+import common.BinaryProtocol;
+import common.GameConfig;
+import common.MigrationState;
+import common.SnapshotCodec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+class GatewaySession implements Runnable {
+    private final Gateway gateway;
+    private final Socket client;
+    private final DataInputStream clientIn;
+    private final DataOutputStream clientOut;
+    private volatile Link link;
+    private String hello;
+    private String room;
+    private String login;
+    private String lastInputLine;
+    private ByteBuffer lastInputFrame;
+    private boolean deltaRequested = false;
+    private volatile boolean clientBinary = false;
+    private int maxSeq = -1;
+    private boolean closed = false;
+
+    private class Link implements Runnable {
+        final Gateway.Backend backend;
+        final boolean migrated;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        int seqOffset = 0;
+
+        Link(Gateway.Backend backend, boolean migrated) throws IOException {
+            this.backend = backend;
+            this.migrated = migrated;
+            this.socket = new Socket(backend.address.getAddress(), backend.address.getPort());
+            this.socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void sendLine(String line) throws IOException {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        void sendFrame(ByteBuffer frame) throws IOException {
+            out.writeInt(frame.limit());
+            out.write(frame.array(), frame.arrayOffset(), frame.limit());
+            out.flush();
+        }
+
+        @Override
+        public void run() {
+            try {
+                boolean frames = false;
+                while (true) {
+                    if (frames) {
+                        onBackendFrame(this, BinaryProtocol.readFrame(in));
+                        continue;
+                    }
+                    String line = BinaryProtocol.readLine(in);
+                    if (line == null) break;
+                    frames = onBackendLine(this, line);
+                }
+            } catch (IOException ignored) {
+            } finally {
+                if (link == this) {
+                    close();
+                }
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    GatewaySession(Gateway gateway, Socket client) throws IOException {
+        this.gateway = gateway;
+        this.client = client;
+        this.clientIn = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+        this.clientOut = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+    }
+
+    @Override
+    public void run() {
+        gateway.sessions.incrementAndGet();
+        try {
+            Link first = new Link(gateway.backendFor(GameConfig.MAP_WIDTH / 2), false);
+            synchronized (this) {
+                link = first;
+                first.sendLine(region(first.backend));
+            }
+            gateway.executor.execute(first);
+
+            String line;
+            while ((line = BinaryProtocol.readLine(clientIn)) != null) {
+                if (onClientLine(line)) {
+                    readFrames();
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+        } catch (IOException e) {
+            System.out.println("Gateway session " + client.getPort() + " ended: " + e.getMessage());
+        } finally {
+            close();
+            gateway.sessions.decrementAndGet();
+        }
+    }
+
+    private boolean onClientLine(String line) throws IOException {
+        if (line.startsWith(MigrationState.GATEWAY_PREFIX) || line.startsWith(MigrationState.RESTORE_PREFIX)) return false;
+
+        if (line.startsWith("ACK:")) {
+            int ack = toBackendSeq(Integer.parseInt(line.substring(4)));
+            if (ack < SnapshotCodec.KEYFRAME) return false;
+            line = "ACK:" + ack;
+        }
+        synchronized (this) {
+            if (line.startsWith("HELLO:")) {
+                hello = line;
+                clientBinary = line.equals(BinaryProtocol.HELLO_BINARY);
+            } else if (line.equals("SNAPSHOTS:DELTA")) {
+                deltaRequested = true;
+            } else if (line.startsWith(RoomManager.ROOM_PREFIX)) {
+                room = line;
+            } else if (line.startsWith("LOGIN:")) {
+                login = line;
+            } else if (line.startsWith("INPUT:") || line.startsWith("MOVE:") || line.equals("STOP")) {
+                lastInputLine = line;
+            }
+            link.sendLine(line);
+        }
+        return clientBinary;
+    }
+
+    private void readFrames() throws IOException {
+        while (true) {
+            ByteBuffer frame = BinaryProtocol.readFrame(clientIn, BinaryProtocol.MAX_INBOUND_FRAME_SIZE);
+            if (frame.get(0) == BinaryProtocol.OP_ACK) {
+                int ack = toBackendSeq(frame.getInt(1));
+                if (ack < SnapshotCodec.KEYFRAME) continue;
+                frame.putInt(1, ack);
+            }
+            byte opcode = frame.get(0);
+            synchronized (this) {
+                if (opcode == BinaryProtocol.OP_INPUT || opcode == BinaryProtocol.OP_MOVE || opcode == BinaryProtocol.OP_STOP) {
+                    lastInputFrame = frame;
+                }
+                link.sendFrame(frame);
+            }
+        }
+    }
+
+    private int toBackendSeq(int seq) {
+        if (seq == SnapshotCodec.KEYFRAME) return seq;
+        int backendSeq = seq - link.seqOffset;
+        return backendSeq >= 0 ? backendSeq : SnapshotCodec.KEYFRAME - 1;
+    }
+
+    private boolean onBackendLine(Link from, String line) throws IOException {
+        if (line.startsWith(MigrationState.MIGRATE_PREFIX)) {
+            migrate(from, line.substring(MigrationState.MIGRATE_PREFIX.length()));
+            return false;
+        }
+        if (line.equals(BinaryProtocol.HELLO_BINARY)) {
+            if (!from.migrated) {
+                toClient(from, (line + "\n").getBytes(StandardCharsets.UTF_8), -1);
+            }
+            return true;
+        }
+        if (line.startsWith("UDP:")) return false;
+        if (from.migrated && (clientBinary || line.startsWith("ID:") || line.startsWith("HELLO:") || line.startsWith(RoomManager.ROOM_PREFIX))) return false;
+
+        int seq = -1;
+        if (line.startsWith("SNAP:")) {
+            String[] header = line.split(":", 4);
+            seq = Integer.parseInt(header[1]) + from.seqOffset;
+            int base = Integer.parseInt(header[2]);
+            line = "SNAP:" + seq + ":" + (base == SnapshotCodec.KEYFRAME ? base : base + from.seqOffset) + ":" + header[3];
+        }
+        toClient(from, (line + "\n").getBytes(StandardCharsets.UTF_8), seq);
+        return false;
+    }
+
+    private void onBackendFrame(Link from, ByteBuffer frame) throws IOException {
+        byte opcode = frame.get(0);
+        if (opcode == BinaryProtocol.OP_MIGRATE) {
+            frame.position(1);
+            migrate(from, BinaryProtocol.decodeMigrate(frame));
+            return;
+        }
+
+        int seq = -1;
+        if (opcode == BinaryProtocol.OP_SNAPSHOT) {
+            seq = frame.getInt(1) + from.seqOffset;
+            int base = frame.getInt(5);
+            frame.putInt(1, seq);
+            frame.putInt(5, base == SnapshotCodec.KEYFRAME ? base : base + from.seqOffset);
+        }
+        byte[] out = new byte[4 + frame.limit()];
+        ByteBuffer.wrap(out).putInt(frame.limit()).put(frame.array(), frame.arrayOffset(), frame.limit());
+        toClient(from, out, seq);
+    }
+
+    private void toClient(Link from, byte[] data, int seq) throws IOException {
+        synchronized (clientOut) {
+            if (link != from) return;
+
+            clientOut.write(data);
+            if (seq > maxSeq) {
+                maxSeq = seq;
+            }
+            if (from.in.available() == 0) {
+                clientOut.flush();
+            }
+        }
+    }
+
+    private void migrate(Link from, String data) throws IOException {
+        if (link != from) return;
+
+        MigrationState state = MigrationState.fromString(data);
+        Gateway.Backend target = gateway.backendFor(state.centerX());
+        if (target == from.backend) return;
+
+        Link to;
+        try {
+            to = new Link(target, true);
+        } catch (IOException e) {
+            gateway.failedMigrations.incrementAndGet();
+            System.out.println("Could not migrate " + state.player.id + " to backend " + target.index + ", keeping it on " + from.backend.index + ": " + e.getMessage());
+            synchronized (this) {
+                from.sendLine(MigrationState.GATEWAY_PREFIX + 0 + ":" + GameConfig.MAP_WIDTH);
+            }
+            return;
+        }
+
+        synchronized (this) {
+            synchronized (clientOut) {
+                clientOut.flush();
+                to.seqOffset = maxSeq + 1;
+                link = to;
+            }
+            to.sendLine(region(target));
+            to.sendLine(MigrationState.RESTORE_PREFIX + data);
+            if (room != null) {
+                to.sendLine(room);
+            }
+            if (login != null) {
+                to.sendLine(login);
+            }
+            if (hello != null) {
+                to.sendLine(hello);
+            }
+            if (deltaRequested) {
+                to.sendLine("SNAPSHOTS:DELTA");
+            }
+            if (clientBinary && lastInputFrame != null) {
+                to.sendFrame(lastInputFrame);
+            } else if (!clientBinary && lastInputLine != null) {
+                to.sendLine(lastInputLine);
+            }
+        }
+        gateway.executor.execute(to);
+        from.close();
+        gateway.migrations.incrementAndGet();
+    }
+
+    private static String region(Gateway.Backend backend) {
+        return MigrationState.GATEWAY_PREFIX + backend.minX + ":" + backend.maxX;
+    }
+
+    private void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        Link current = link;
+        if (current != null) {
+            current.close();
+        }
+        try {
+            client.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
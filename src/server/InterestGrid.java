@@ -0,0 +1,68 @@
+package server;
+
+import common.GameConfig;
+import java.util.*;
+
+public class InterestGrid {
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final List<List<String>> cells;
+
+    public InterestGrid(int cellSize) {
+        this.cellSize = cellSize;
+        this.columns = (GameConfig.MAP_WIDTH + cellSize - 1) / cellSize;
+        this.rows = (GameConfig.MAP_HEIGHT + cellSize - 1) / cellSize;
+        this.cells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+    }
+
+    public void clear() {
+        for (List<String> cell : cells) {
+            cell.clear();
+        }
+    }
+
+    public void add(String key, int x, int y) {
+        cells.get(cellOf(x, y)).add(key);
+    }
+
+    public int cellOf(int x, int y) {
+        int column = Math.max(0, Math.min(columns - 1, x / cellSize));
+        int row = Math.max(0, Math.min(rows - 1, y / cellSize));
+        return row * columns + column;
+    }
+
+    public <T> Map<String, T> view(int cell, Map<String, T> world) {
+        Map<String, T> visible = new LinkedHashMap<>();
+        int column = cell % columns;
+        int row = cell / columns;
+
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                for (String key : cells.get(r * columns + c)) {
+                    T entity = world.get(key);
+                    if (entity != null) {
+                        visible.put(key, entity);
+                    }
+                }
+            }
+        }
+        return visible;
+    }
+
+    public List<String> keysAround(int cell) {
+        List<String> keys = new ArrayList<>();
+        int column = cell % columns;
+        int row = cell / columns;
+
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                keys.addAll(cells.get(r * columns + c));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,192 @@
+package server;
+
+import common.BinaryProtocol;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class NioConnection implements Connection {
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final NioEventLoop loop;
+    private final SessionHandler protocol;
+    private final String playerId;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private boolean binary = false;
+    private final OutboundQueue outbound = new OutboundQueue();
+    private ByteBuffer writing;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private SelectionKey key;
+    private ClientSession session;
+
+    public NioConnection(SocketChannel channel, NioEventLoop loop, SessionHandler protocol) throws IOException {
+        this.channel = channel;
+        this.loop = loop;
+        this.protocol = protocol;
+        this.playerId = "P" + ((InetSocketAddress) channel.getRemoteAddress()).getPort();
+    }
+
+    void onRegistered(SelectionKey key) {
+        this.key = key;
+        this.session = protocol.onConnect(this);
+    }
+
+    void onReadable() {
+        try {
+            int read;
+            while ((read = channel.read(readBuffer)) > 0) {
+                protocol.getTransportMetrics().recordBytesIn(read);
+                readBuffer.flip();
+                while (binary ? dispatchFrame() : dispatchLine()) {
+                }
+                readBuffer.compact();
+                if (!readBuffer.hasRemaining()) {
+                    growReadBuffer();
+                }
+            }
+            if (read < 0) {
+                close();
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+        }
+    }
+
+    void onWritable() {
+        try {
+            while (true) {
+                if (writing == null) {
+                    byte[] data = outbound.poll();
+                    if (data == null) break;
+                    writing = ByteBuffer.wrap(data);
+                }
+                protocol.getTransportMetrics().recordBytesOut(channel.write(writing));
+                if (writing.hasRemaining()) {
+                    return;
+                }
+                writing = null;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            writeScheduled.set(false);
+            if (outbound.depth() > 0 && writeScheduled.compareAndSet(false, true)) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void growReadBuffer() throws IOException {
+        if (readBuffer.capacity() >= MAX_LINE_LENGTH + 4) {
+            throw new IOException("Message too long from " + playerId);
+        }
+        ByteBuffer grown = ByteBuffer.allocate(readBuffer.capacity() * 2);
+        readBuffer.flip();
+        grown.put(readBuffer);
+        readBuffer = grown;
+    }
+
+    private boolean dispatchLine() {
+        int start = readBuffer.position();
+        for (int i = start; i < readBuffer.limit(); i++) {
+            if (readBuffer.get(i) != '\n') continue;
+
+            int end = i > start && readBuffer.get(i - 1) == '\r' ? i - 1 : i;
+            String line = new String(readBuffer.array(), start, end - start, StandardCharsets.UTF_8);
+            readBuffer.position(i + 1);
+
+            if (line.startsWith("HELLO:")) {
+                binary = protocol.onHello(session, line);
+            } else {
+                protocol.onMessage(session, line);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean dispatchFrame() throws IOException {
+        if (readBuffer.remaining() < 4) return false;
+
+        int length = readBuffer.getInt(readBuffer.position());
+        if (length <= 0 || length > BinaryProtocol.MAX_INBOUND_FRAME_SIZE) {
+            throw new IOException("Invalid frame length from " + playerId + ": " + length);
+        }
+        if (readBuffer.remaining() < 4 + length) return false;
+
+        byte[] frame = new byte[length];
+        readBuffer.position(readBuffer.position() + 4);
+        readBuffer.get(frame);
+        protocol.onFrame(session, ByteBuffer.wrap(frame));
+        return true;
+    }
+
+    @Override
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    @Override
+    public void send(String msg) {
+        sendBytes((msg + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void sendBytes(byte[] data) {
+        if (closed.get()) return;
+
+        scheduleWrite(outbound.offer(data));
+    }
+
+    @Override
+    public void sendSnapshot(byte[] data) {
+        if (closed.get()) return;
+
+        scheduleWrite(outbound.offerSnapshot(data));
+    }
+
+    private void scheduleWrite(boolean withinBudget) {
+        if (!withinBudget) {
+            System.out.println("Disconnecting slow consumer " + playerId + " (" + outbound.getQueuedBytes() + " bytes queued)");
+            outbound.close();
+            loop.execute(this::close);
+            return;
+        }
+        if (writeScheduled.compareAndSet(false, true)) {
+            loop.execute(() -> {
+                if (key != null && key.isValid()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            });
+        }
+    }
+
+    @Override
+    public OutboundQueue getOutbound() {
+        return outbound;
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        outbound.close();
+        if (session != null) {
+            protocol.onDisconnect(session);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package server;
+
+import common.GameConfig;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+public class NioGameServer {
+    private final SessionHandler protocol;
+    private final NioEventLoop[] loops;
+    private int nextLoop = 0;
+
+    public NioGameServer(SessionHandler protocol, int loopCount) throws IOException {
+        this.protocol = protocol;
+        this.loops = new NioEventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new NioEventLoop(protocol);
+        }
+    }
+
+    public void start() throws IOException {
+        start(new InetSocketAddress(GameConfig.PORT));
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            Thread thread = new Thread(loops[i], "nio-loop-" + i);
+            thread.start();
+        }
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(address, 1024);
+            System.out.println("Server started on " + address.getPort() + " (nio, " + loops.length + " event loops)");
+
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                loops[nextLoop].register(channel);
+                nextLoop = (nextLoop + 1) % loops.length;
+            }
+        } finally {
+            for (NioEventLoop loop : loops) {
+                loop.shutdown();
+            }
+        }
+    }
+}
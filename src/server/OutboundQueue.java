@@ -0,0 +1,189 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class OutboundQueue {
+    public static final int MAX_QUEUED_BYTES = 256 * 1024;
+    public static final int HARD_LIMIT_BYTES = 4 * MAX_QUEUED_BYTES;
+    public static final long SLOW_CONSUMER_TIMEOUT_MS = 3000;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayDeque<byte[]> reliable = new ArrayDeque<>();
+    private byte[] snapshot;
+    private int queuedBytes = 0;
+    private long overBudgetSince = 0;
+    private long coalesced = 0;
+    private long sent = 0;
+    private int maxDepth = 0;
+    private boolean slowConsumer = false;
+    private boolean closed = false;
+
+    public boolean offer(byte[] data) {
+        lock.lock();
+        try {
+            if (closed) return true;
+
+            if (snapshot != null) {
+                reliable.add(snapshot);
+                snapshot = null;
+            }
+            reliable.add(data);
+            queuedBytes += data.length;
+            return afterOffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean offerSnapshot(byte[] data) {
+        lock.lock();
+        try {
+            if (closed) return true;
+
+            if (snapshot != null) {
+                queuedBytes -= snapshot.length;
+                coalesced++;
+            }
+            snapshot = data;
+            queuedBytes += data.length;
+            return afterOffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean afterOffer() {
+        maxDepth = Math.max(maxDepth, depth());
+        notEmpty.signal();
+
+        if (queuedBytes <= MAX_QUEUED_BYTES) {
+            overBudgetSince = 0;
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (overBudgetSince == 0) {
+            overBudgetSince = now;
+        }
+        if (queuedBytes > HARD_LIMIT_BYTES || now - overBudgetSince > SLOW_CONSUMER_TIMEOUT_MS) {
+            slowConsumer = true;
+            return false;
+        }
+        return true;
+    }
+
+    public byte[] poll() {
+        lock.lock();
+        try {
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public byte[] take(long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = unit.toNanos(timeout);
+            while (!closed && reliable.isEmpty() && snapshot == null) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] next() {
+        byte[] data = reliable.poll();
+        if (data == null) {
+            data = snapshot;
+            snapshot = null;
+        }
+        if (data != null) {
+            queuedBytes -= data.length;
+            sent++;
+        }
+        return data;
+    }
+
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            reliable.clear();
+            snapshot = null;
+            queuedBytes = 0;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int depth() {
+        lock.lock();
+        try {
+            return reliable.size() + (snapshot != null ? 1 : 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedBytes() {
+        lock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxDepth() {
+        lock.lock();
+        try {
+            return maxDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalesced() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSent() {
+        lock.lock();
+        try {
+            return sent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isSlowConsumer() {
+        lock.lock();
+        try {
+            return slowConsumer;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PlayerProfile {
+    public final String name;
+    int money = 0;
+    int level = 1;
+    int experience = 0;
+    final Map<String, Integer> inventory = new LinkedHashMap<>();
+
+    PlayerProfile(String name) {
+        this.name = name;
+    }
+
+    public synchronized int getMoney() {
+        return money;
+    }
+
+    synchronized void copyFrom(PlayerProfile other) {
+        money = other.money;
+        level = other.level;
+        experience = other.experience;
+        inventory.clear();
+        inventory.putAll(other.inventory);
+    }
+
+    public synchronized String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(money).append('|').append(level).append('|').append(experience).append('|');
+        boolean first = true;
+        for (Map.Entry<String, Integer> item : inventory.entrySet()) {
+            if (!first) sb.append(',');
+            sb.append(item.getKey()).append(':').append(item.getValue());
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    public String toLine() {
+        return "PLAYER:" + name + "|" + encode();
+    }
+
+    static PlayerProfile parseLine(String line) {
+        String[] parts = line.substring("PLAYER:".length()).split("\\|", -1);
+        if (parts.length < 4) return null;
+
+        PlayerProfile profile = new PlayerProfile(parts[0]);
+        profile.money = Integer.parseInt(parts[1]);
+        profile.level = Integer.parseInt(parts[2]);
+        profile.experience = Integer.parseInt(parts[3]);
+        if (parts.length > 4 && !parts[4].isEmpty()) {
+            for (String item : parts[4].split(",")) {
+                String[] itemParts = item.split(":");
+                if (itemParts.length == 2) {
+                    profile.inventory.put(itemParts[0], Integer.parseInt(itemParts[1]));
+                }
+            }
+        }
+        return profile;
+    }
+}
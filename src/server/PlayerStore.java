@@ -0,0 +1,184 @@
+package server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+public class PlayerStore {
+    public static final String DEFAULT_FILE = "server_players.txt";
+    private static final Pattern NAME = Pattern.compile("[^|:,;\\r\\n]{1,32}");
+    private static final String HEADER = "# Player Database\n"
+            + "# Format: PLAYER:playerName|money|level|experience|inventory\n"
+            + "# Inventory format: item1:quantity1,item2:quantity2\n\n";
+
+    private final Path file;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+    private final Map<String, PlayerProfile> profiles = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> online = new ConcurrentHashMap<>();
+    private final Object signal = new Object();
+    private Thread writer;
+    private volatile boolean running = true;
+    private final AtomicLong mutations = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong profilesWritten = new AtomicLong();
+
+    public PlayerStore(Path file, long flushIntervalMillis, int batchSize) throws IOException {
+        this.file = file;
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.batchSize = Math.max(1, batchSize);
+        load();
+    }
+
+    public synchronized void start() {
+        if (writer != null) return;
+
+        writer = new Thread(this::writeLoop, "player-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("Player store: " + profiles.size() + " profiles from " + file + " (flush every " + flushIntervalMillis
+                + "ms or " + batchSize + " dirty profiles)");
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) return;
+
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.startsWith("PLAYER:")) continue;
+
+            try {
+                PlayerProfile profile = PlayerProfile.parseLine(line);
+                if (profile != null) {
+                    profiles.put(profile.name, profile);
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Skipping malformed player record: " + line);
+            }
+        }
+    }
+
+    public static boolean isValidName(String name) {
+        return NAME.matcher(name).matches();
+    }
+
+    public PlayerProfile login(String name) {
+        if (!isValidName(name) || online.putIfAbsent(name, 1) != null) return null;
+
+        return profiles.computeIfAbsent(name, n -> {
+            markDirty(n);
+            return new PlayerProfile(n);
+        });
+    }
+
+    public void logout(PlayerProfile profile) {
+        online.computeIfPresent(profile.name, (name, sessions) -> sessions > 1 ? sessions - 1 : null);
+    }
+
+    public PlayerProfile restore(String line) {
+        PlayerProfile carried;
+        try {
+            carried = PlayerProfile.parseLine(line);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            carried = null;
+        }
+        if (carried == null || !isValidName(carried.name)) return null;
+
+        online.merge(carried.name, 1, Integer::sum);
+        PlayerProfile profile = profiles.computeIfAbsent(carried.name, PlayerProfile::new);
+        profile.copyFrom(carried);
+        markDirty(profile.name);
+        return profile;
+    }
+
+    public void reward(PlayerProfile profile, int money, Map<String, Integer> items) {
+        synchronized (profile) {
+            profile.money += money;
+            for (Map.Entry<String, Integer> item : items.entrySet()) {
+                profile.inventory.merge(item.getKey(), item.getValue(), Integer::sum);
+            }
+        }
+        markDirty(profile.name);
+    }
+
+    private void markDirty(String name) {
+        mutations.incrementAndGet();
+        if (dirty.add(name) && dirty.size() >= batchSize) {
+            synchronized (signal) {
+                signal.notify();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running && dirty.size() < batchSize) {
+                        signal.wait(flushIntervalMillis);
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        if (dirty.isEmpty()) return;
+
+        List<String> batch = new ArrayList<>(dirty);
+        dirty.removeAll(batch);
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (PlayerProfile profile : profiles.values()) {
+            sb.append(profile.toLine()).append('\n');
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(tmp, sb.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            flushes.incrementAndGet();
+            profilesWritten.addAndGet(batch.size());
+        } catch (IOException e) {
+            dirty.addAll(batch);
+            System.out.println("Could not write player store " + file + ": " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        running = false;
+        synchronized (signal) {
+            signal.notify();
+        }
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+        }
+        if (thread != null) {
+            try {
+                thread.join(flushIntervalMillis + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        System.out.println("Player store closed: " + summarize());
+    }
+
+    public String summarize() {
+        return String.format("profiles=%d online=%d mutations=%d flushes=%d profiles-written=%d dirty=%d",
+                profiles.size(), online.size(), mutations.get(), flushes.get(), profilesWritten.get(), dirty.size());
+    }
+}
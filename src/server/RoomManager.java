@@ -0,0 +1,303 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+public class RoomManager implements SessionHandler {
+    public static final String ROOM_PREFIX = "ROOM:";
+    private static final Pattern ROOM_NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    private static final long JOIN_TIMEOUT_MILLIS = 250;
+    private static final int SWEEP_INTERVAL_SECONDS = 30;
+
+    private final ScheduledExecutorService scheduler;
+    private final List<String> initialRooms;
+    private final int threads;
+    private final Map<String, Room> rooms = new LinkedHashMap<>();
+    private final int tickRate;
+    private final int capacity;
+    private final int maxRooms;
+    private final int statsIntervalSeconds;
+    private final boolean jmx;
+    private final TransportMetrics transportMetrics = new TransportMetrics();
+    private UdpTransport udp;
+    private boolean gatewayTrusted = false;
+    private PlayerStore store;
+    private int nextRoomId = 1;
+
+    private class Room {
+        final String name;
+        final boolean permanent;
+        final ServerProtocol protocol = new ServerProtocol(new HashMap<>(), new ArrayList<>(), GameServer.createChickens());
+        final ServerTick tick;
+        final AtomicInteger members = new AtomicInteger();
+
+        Room(String name, boolean permanent) {
+            this.name = name;
+            this.permanent = permanent;
+            this.tick = new ServerTick(protocol, tickRate, name);
+            protocol.setUdpTransport(udp);
+            protocol.setGatewayTrusted(gatewayTrusted);
+            protocol.setPlayerStore(store);
+        }
+
+        String objectName() {
+            return ServerMetrics.OBJECT_NAME + ",room=" + name;
+        }
+    }
+
+    public RoomManager(List<String> names, int threads, int tickRate, int capacity, int maxRooms, int statsIntervalSeconds, boolean jmx) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "room-tick-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        this.scheduler = pool;
+        this.initialRooms = List.copyOf(names);
+        this.threads = Math.max(1, threads);
+        this.tickRate = Math.max(1, tickRate);
+        this.capacity = Math.max(1, capacity);
+        this.maxRooms = Math.max(1, maxRooms);
+        this.statsIntervalSeconds = statsIntervalSeconds;
+        this.jmx = jmx;
+    }
+
+    public void start() {
+        synchronized (rooms) {
+            for (String name : initialRooms) {
+                if (ROOM_NAME.matcher(name).matches()) {
+                    open(name, true);
+                }
+            }
+            if (rooms.isEmpty()) {
+                open(nextRoomName(), true);
+            }
+        }
+        if (jmx) {
+            transportMetrics.register();
+        }
+        scheduler.scheduleAtFixedRate(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        if (statsIntervalSeconds > 0) {
+            scheduler.scheduleAtFixedRate(() -> {
+                System.out.println("Rooms: " + summarize());
+                if (udp != null) {
+                    System.out.println("UDP: " + udp.summarizeAndReset());
+                }
+                if (store != null) {
+                    System.out.println("Player store: " + store.summarize());
+                }
+            }, statsIntervalSeconds, statsIntervalSeconds, TimeUnit.SECONDS);
+        }
+        System.out.println("Room scheduler: " + threads + " threads, capacity " + capacity + " players/room, max " + maxRooms + " rooms");
+    }
+
+    public void setUdpTransport(UdpTransport udp) {
+        this.udp = udp;
+        synchronized (rooms) {
+            for (Room room : rooms.values()) {
+                room.protocol.setUdpTransport(udp);
+            }
+        }
+    }
+
+    public void setGatewayTrusted(boolean gatewayTrusted) {
+        this.gatewayTrusted = gatewayTrusted;
+        synchronized (rooms) {
+            for (Room room : rooms.values()) {
+                room.protocol.setGatewayTrusted(gatewayTrusted);
+            }
+        }
+    }
+
+    public void setPlayerStore(PlayerStore store) {
+        this.store = store;
+        synchronized (rooms) {
+            for (Room room : rooms.values()) {
+                room.protocol.setPlayerStore(store);
+            }
+        }
+    }
+
+    @Override
+    public TransportMetrics getTransportMetrics() {
+        return transportMetrics;
+    }
+
+    @Override
+    public ClientSession onConnect(Connection conn) {
+        ClientSession session = ServerProtocol.newSession(conn);
+        scheduler.schedule(() -> roomOf(session, null), JOIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        return session;
+    }
+
+    @Override
+    public void onMessage(ClientSession session, String input) {
+        if (input.startsWith(ROOM_PREFIX)) {
+            if (session.protocol != null) {
+                System.out.println("Ignoring room request from " + session.player.id + ": already joined");
+                return;
+            }
+            roomOf(session, input.substring(ROOM_PREFIX.length()));
+            return;
+        }
+        ServerProtocol protocol = roomOf(session, null);
+        if (protocol != null) {
+            protocol.onMessage(session, input);
+        }
+    }
+
+    @Override
+    public void onFrame(ClientSession session, ByteBuffer frame) {
+        ServerProtocol protocol = roomOf(session, null);
+        if (protocol != null) {
+            protocol.onFrame(session, frame);
+        }
+    }
+
+    @Override
+    public boolean onHello(ClientSession session, String hello) {
+        ServerProtocol protocol = roomOf(session, null);
+        return protocol != null && protocol.onHello(session, hello);
+    }
+
+    @Override
+    public void onDisconnect(ClientSession session) {
+        synchronized (session) {
+            if (session.protocol == null) {
+                session.disconnected = true;
+                return;
+            }
+        }
+        session.protocol.onDisconnect(session);
+        synchronized (rooms) {
+            for (Room room : rooms.values()) {
+                if (room.protocol == session.protocol) {
+                    room.members.decrementAndGet();
+                    break;
+                }
+            }
+        }
+    }
+
+    private ServerProtocol roomOf(ClientSession session, String requested) {
+        ServerProtocol protocol = session.protocol;
+        if (protocol != null) return protocol;
+
+        synchronized (session) {
+            if (session.protocol != null || session.disconnected) return session.protocol;
+
+            Room room = assign(requested);
+            session.send(ROOM_PREFIX + room.name);
+            return room.protocol.join(session).protocol;
+        }
+    }
+
+    private Room assign(String requested) {
+        synchronized (rooms) {
+            Room room = null;
+            if (requested != null && ROOM_NAME.matcher(requested).matches()) {
+                room = rooms.get(requested);
+                if (room == null && rooms.size() < maxRooms) {
+                    room = open(requested, false);
+                }
+            }
+            if (room == null || room.members.get() >= capacity) {
+                room = null;
+                for (Room candidate : rooms.values()) {
+                    if (candidate.members.get() < capacity) {
+                        room = candidate;
+                        break;
+                    }
+                }
+            }
+            if (room == null && rooms.size() < maxRooms) {
+                room = open(nextRoomName(), false);
+            }
+            if (room == null) {
+                room = leastLoaded();
+            }
+            room.members.incrementAndGet();
+            return room;
+        }
+    }
+
+    private Room leastLoaded() {
+        Room best = null;
+        for (Room room : rooms.values()) {
+            if (best == null || room.members.get() < best.members.get()) {
+                best = room;
+            }
+        }
+        return best;
+    }
+
+    private String nextRoomName() {
+        String name;
+        do {
+            name = "room-" + nextRoomId++;
+        } while (rooms.containsKey(name));
+        return name;
+    }
+
+    private Room open(String name, boolean permanent) {
+        Room room = new Room(name, permanent);
+        rooms.put(name, room);
+        long period = 1_000_000_000L / tickRate;
+        room.tick.start(scheduler, statsIntervalSeconds, period * (rooms.size() % 8) / 8);
+        if (jmx) {
+            room.protocol.getMetrics().register(room.objectName());
+        }
+        System.out.println("Opened room " + name + " (" + rooms.size() + " rooms)");
+        return room;
+    }
+
+    private void sweep() {
+        synchronized (rooms) {
+            List<Room> idle = new ArrayList<>();
+            for (Room room : rooms.values()) {
+                if (!room.permanent && room.members.get() == 0) {
+                    idle.add(room);
+                }
+            }
+            for (Room room : idle) {
+                room.tick.stop();
+                if (jmx) {
+                    room.protocol.getMetrics().unregister(room.objectName());
+                }
+                rooms.remove(room.name);
+                System.out.println("Closed idle room " + room.name + " (" + rooms.size() + " rooms)");
+            }
+        }
+    }
+
+    public String summarize() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (rooms) {
+            for (Room room : rooms.values()) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(room.name).append('=').append(room.members.get());
+            }
+        }
+        return sb.toString();
+    }
+
+    public String renderMetrics() {
+        Map<String, ServerMetrics> byRoom = new LinkedHashMap<>();
+        synchronized (rooms) {
+            for (Room room : rooms.values()) {
+                byRoom.put(room.name, room.protocol.getMetrics());
+            }
+        }
+        return ServerMetrics.render(byRoom, transportMetrics);
+    }
+}
@@ -0,0 +1,270 @@
+package server;
+
+import common.BinaryProtocol;
+import common.LatencyHistogram;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class ServerMetrics implements ServerMetricsMXBean {
+    public static final String OBJECT_NAME = "server:type=GameServer";
+    private static final String[] OPCODE_NAMES = {
+        "OTHER", "SNAPSHOT", "ACK", "MOVE", "STOP", "ATTACK", "MONEY", "CHICKEN_ATTACK", "INPUT", "UDP_HELLO"
+    };
+    private static final int OP_OTHER = 0;
+
+    private final AtomicInteger commandDepth;
+    private final TransportMetrics transport;
+    private volatile WorldSnapshot world = WorldSnapshot.EMPTY;
+    final LongAdder connectionsOpened = new LongAdder();
+    final LongAdder connectionsClosed = new LongAdder();
+    final LongAdder slowConsumerDisconnects = new LongAdder();
+    final LongAdder snapshotsSent = new LongAdder();
+    final LongAdder broadcasts = new LongAdder();
+    final LongAdder ticks = new LongAdder();
+    final LongAdder tickOverruns = new LongAdder();
+    private final AtomicLongArray messages = new AtomicLongArray(OPCODE_NAMES.length);
+    private final LatencyHistogram tickDuration = new LatencyHistogram();
+    private final LatencyHistogram broadcastDuration = new LatencyHistogram();
+    private final LatencyHistogram commandLatency = new LatencyHistogram();
+    private volatile LatencyHistogram lastTickDuration = new LatencyHistogram();
+    private volatile LatencyHistogram lastBroadcastDuration = new LatencyHistogram();
+    private volatile LatencyHistogram lastCommandLatency = new LatencyHistogram();
+    private volatile long tickBudgetNanos = Long.MAX_VALUE;
+
+    ServerMetrics(AtomicInteger commandDepth, TransportMetrics transport) {
+        this.commandDepth = commandDepth;
+        this.transport = transport;
+    }
+
+    void setWorld(WorldSnapshot world) {
+        this.world = world;
+    }
+
+    public void register() {
+        register(OBJECT_NAME);
+    }
+
+    public void register(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+        } catch (JMException e) {
+            System.out.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    public void unregister(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(objectName));
+        } catch (JMException ignored) {
+        }
+    }
+
+    void setTickBudget(long nanos) {
+        this.tickBudgetNanos = nanos;
+    }
+
+    public void recordTick(long nanos) {
+        ticks.increment();
+        if (nanos > tickBudgetNanos) {
+            tickOverruns.increment();
+        }
+        tickDuration.record(nanos);
+    }
+
+    void recordBroadcast(long nanos) {
+        broadcasts.increment();
+        broadcastDuration.record(nanos);
+    }
+
+    void recordCommandLatency(long nanos) {
+        commandLatency.record(nanos);
+    }
+
+    void recordFrame(byte opcode) {
+        messages.incrementAndGet(opcode > 0 && opcode < OPCODE_NAMES.length ? opcode : OP_OTHER);
+    }
+
+    void recordMessage(String input) {
+        messages.incrementAndGet(textOpcode(input));
+    }
+
+    private static int textOpcode(String input) {
+        if (input.startsWith("INPUT:")) return BinaryProtocol.OP_INPUT;
+        if (input.startsWith("ACK:")) return BinaryProtocol.OP_ACK;
+        if (input.startsWith("MOVE:")) return BinaryProtocol.OP_MOVE;
+        if (input.equals("STOP")) return BinaryProtocol.OP_STOP;
+        if (input.equals("ATTACK")) return BinaryProtocol.OP_ATTACK;
+        if (input.startsWith("MONEY:")) return BinaryProtocol.OP_MONEY;
+        if (input.startsWith("CHICKEN_ATTACK:")) return BinaryProtocol.OP_CHICKEN_ATTACK;
+        return OP_OTHER;
+    }
+
+    public void rotate() {
+        lastTickDuration = tickDuration.copyAndReset();
+        lastBroadcastDuration = broadcastDuration.copyAndReset();
+        lastCommandLatency = commandLatency.copyAndReset();
+    }
+
+    @Override
+    public int getConnectedClients() {
+        return world.sessions.size();
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    @Override
+    public long getConnectionsClosed() {
+        return connectionsClosed.sum();
+    }
+
+    @Override
+    public long getSlowConsumerDisconnects() {
+        return slowConsumerDisconnects.sum();
+    }
+
+    @Override
+    public long getSnapshotsSent() {
+        return snapshotsSent.sum();
+    }
+
+    @Override
+    public long getBroadcasts() {
+        return broadcasts.sum();
+    }
+
+    @Override
+    public Map<String, Long> getMessagesByOpcode() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < OPCODE_NAMES.length; i++) {
+            counts.put(OPCODE_NAMES[i], messages.get(i));
+        }
+        return counts;
+    }
+
+    @Override
+    public int getCommandQueueDepth() {
+        return commandDepth.get();
+    }
+
+    @Override
+    public long getOutboundQueuedBytes() {
+        long queued = 0;
+        for (ClientSession c : world.sessions) {
+            queued += c.connection.getOutbound().getQueuedBytes();
+        }
+        return queued;
+    }
+
+    @Override
+    public int getOutboundMaxDepth() {
+        int maxDepth = 0;
+        for (ClientSession c : world.sessions) {
+            maxDepth = Math.max(maxDepth, c.connection.getOutbound().getMaxDepth());
+        }
+        return maxDepth;
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public long getTickOverruns() {
+        return tickOverruns.sum();
+    }
+
+    @Override
+    public double getTickP50Millis() {
+        return lastTickDuration.percentileMicros(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getTickP99Millis() {
+        return lastTickDuration.percentileMicros(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getTickMaxMillis() {
+        return lastTickDuration.getMaxMicros() / 1000.0;
+    }
+
+    @Override
+    public double getBroadcastP99Millis() {
+        return lastBroadcastDuration.percentileMicros(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getCommandLatencyP99Millis() {
+        return lastCommandLatency.percentileMicros(0.99) / 1000.0;
+    }
+
+    public String render() {
+        return render(Map.of("", this), transport);
+    }
+
+    public static String render(Map<String, ServerMetrics> byRoom, TransportMetrics transport) {
+        StringBuilder sb = new StringBuilder();
+        family(sb, "connected_clients", "gauge", byRoom, ServerMetrics::getConnectedClients);
+        family(sb, "connections_opened_total", "counter", byRoom, ServerMetrics::getConnectionsOpened);
+        family(sb, "connections_closed_total", "counter", byRoom, ServerMetrics::getConnectionsClosed);
+        family(sb, "slow_consumer_disconnects_total", "counter", byRoom, ServerMetrics::getSlowConsumerDisconnects);
+        sb.append("# TYPE bytes_in_total counter\n").append("bytes_in_total ").append(transport.getBytesIn()).append('\n');
+        sb.append("# TYPE bytes_out_total counter\n").append("bytes_out_total ").append(transport.getBytesOut()).append('\n');
+        family(sb, "snapshots_sent_total", "counter", byRoom, ServerMetrics::getSnapshotsSent);
+        family(sb, "broadcasts_total", "counter", byRoom, ServerMetrics::getBroadcasts);
+        sb.append("# TYPE messages_total counter\n");
+        byRoom.forEach((room, metrics) -> {
+            for (int i = 0; i < OPCODE_NAMES.length; i++) {
+                sb.append("messages_total{").append(roomLabel(room, ",")).append("opcode=\"").append(OPCODE_NAMES[i]).append("\"} ")
+                        .append(metrics.messages.get(i)).append('\n');
+            }
+        });
+        family(sb, "command_queue_depth", "gauge", byRoom, ServerMetrics::getCommandQueueDepth);
+        family(sb, "outbound_queued_bytes", "gauge", byRoom, ServerMetrics::getOutboundQueuedBytes);
+        family(sb, "outbound_max_depth", "gauge", byRoom, ServerMetrics::getOutboundMaxDepth);
+        family(sb, "ticks_total", "counter", byRoom, ServerMetrics::getTicks);
+        family(sb, "tick_overruns_total", "counter", byRoom, ServerMetrics::getTickOverruns);
+        summary(sb, "tick_duration_seconds", byRoom, m -> m.lastTickDuration);
+        summary(sb, "broadcast_duration_seconds", byRoom, m -> m.lastBroadcastDuration);
+        summary(sb, "command_latency_seconds", byRoom, m -> m.lastCommandLatency);
+        return sb.toString();
+    }
+
+    private static String roomLabel(String room, String separator) {
+        return room.isEmpty() ? "" : "room=\"" + room + "\"" + separator;
+    }
+
+    private static String labels(String room) {
+        return room.isEmpty() ? "" : "{" + roomLabel(room, "") + "}";
+    }
+
+    private static void family(StringBuilder sb, String name, String type, Map<String, ServerMetrics> byRoom, ToLongFunction<ServerMetrics> value) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        byRoom.forEach((room, metrics) -> sb.append(name).append(labels(room)).append(' ').append(value.applyAsLong(metrics)).append('\n'));
+    }
+
+    private static void summary(StringBuilder sb, String name, Map<String, ServerMetrics> byRoom, Function<ServerMetrics, LatencyHistogram> histogramOf) {
+        sb.append("# TYPE ").append(name).append(" summary\n");
+        byRoom.forEach((room, metrics) -> {
+            LatencyHistogram histogram = histogramOf.apply(metrics);
+            for (double quantile : new double[] { 0.5, 0.9, 0.99, 0.999 }) {
+                sb.append(name).append("{").append(roomLabel(room, ",")).append("quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.percentileMicros(quantile) / 1e6).append('\n');
+            }
+            sb.append(name).append("_max").append(labels(room)).append(' ').append(histogram.getMaxMicros() / 1e6).append('\n');
+            sb.append(name).append("_count").append(labels(room)).append(' ').append(histogram.getCount()).append('\n');
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package server;
+
+import java.util.Map;
+
+public interface ServerMetricsMXBean {
+    int getConnectedClients();
+
+    long getConnectionsOpened();
+
+    long getConnectionsClosed();
+
+    long getSlowConsumerDisconnects();
+
+    long getSnapshotsSent();
+
+    long getBroadcasts();
+
+    Map<String, Long> getMessagesByOpcode();
+
+    int getCommandQueueDepth();
+
+    long getOutboundQueuedBytes();
+
+    int getOutboundMaxDepth();
+
+    long getTicks();
+
+    long getTickOverruns();
+
+    double getTickP50Millis();
+
+    double getTickP99Millis();
+
+    double getTickMaxMillis();
+
+    double getBroadcastP99Millis();
+
+    double getCommandLatencyP99Millis();
+}
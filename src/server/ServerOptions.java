@@ -0,0 +1,46 @@
+package server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ServerOptions {
+    private final Map<String, String> values = new HashMap<>();
+
+    public ServerOptions(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+
+            String option = arg.substring(2);
+            int eq = option.indexOf('=');
+            if (eq < 0) {
+                values.put(option, "true");
+            } else {
+                values.put(option.substring(0, eq), option.substring(eq + 1));
+            }
+        }
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            value = System.getProperty("server." + key);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid value for --" + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
@@ -0,0 +1,674 @@
+package server;
+
+import common.BinaryProtocol;
+import common.Chicken;
+import common.DroppedItem;
+import common.EntityRegistry;
+import common.GameConfig;
+import common.MigrationState;
+import common.Player;
+import common.SnapshotCodec;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ServerProtocol implements SessionHandler {
+    private static final int ATTACK_REACH = GameConfig.ATTACK_RANGE + GameConfig.PLAYER_SIZE;
+    private static final int MIGRATE_MARGIN = GameConfig.PLAYER_SIZE;
+
+    private final Map<String, Player> players;
+    private final List<ClientSession> clients;
+    private final List<Chicken> globalChickens;
+    private final EntityRegistry<Player> playerEntities = new EntityRegistry<>(GameConfig.SNAPSHOT_HISTORY);
+    private final EntityRegistry<Chicken> chickenEntities = new EntityRegistry<>();
+    private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger commandDepth = new AtomicInteger();
+    private final InterestGrid interestGrid = new InterestGrid(GameConfig.INTEREST_CELL_SIZE);
+    private volatile WorldSnapshot world = WorldSnapshot.EMPTY;
+    private UdpTransport udp;
+    private ZoneSimulation zones;
+    private PlayerStore store;
+    private volatile boolean gatewayTrusted = false;
+    private double tickSeconds = 1.0 / GameConfig.SERVER_TICK_RATE;
+    private long tickCount = 0;
+    private int snapshotSeq = 0;
+    private final AtomicLong snapshotBytesSent = new AtomicLong();
+    private final AtomicLong snapshotBytesFull = new AtomicLong();
+    private final AtomicLong legacyBytesSent = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+    private final TransportMetrics transportMetrics = new TransportMetrics();
+    private final ServerMetrics metrics = new ServerMetrics(commandDepth, transportMetrics);
+
+    private static class Command {
+        final ClientSession session;
+        final Runnable action;
+        final long enqueuedAt = System.nanoTime();
+
+        Command(ClientSession session, Runnable action) {
+            this.session = session;
+            this.action = action;
+        }
+    }
+
+    public ServerProtocol(Map<String, Player> players, List<ClientSession> clients, List<Chicken> globalChickens) {
+        this.players = players;
+        this.clients = clients;
+        this.globalChickens = globalChickens;
+        for (Chicken chicken : globalChickens) {
+            chicken.entityId = chickenEntities.add(chicken);
+        }
+        this.world = WorldSnapshot.capture(0, players.values(), globalChickens, clients);
+        metrics.setWorld(world);
+    }
+
+    public void setTickRate(int tickRate) {
+        this.tickSeconds = 1.0 / tickRate;
+        metrics.setTickBudget(1_000_000_000L / tickRate);
+    }
+
+    public void setZones(int columns, int rows) {
+        enqueue(new Command(null, () -> {
+            if (zones != null) {
+                zones.shutdown();
+                zones = null;
+            }
+            if (columns * rows <= 1) return;
+
+            zones = new ZoneSimulation(columns, rows);
+            zones.addChickens(globalChickens);
+            for (ClientSession c : clients) {
+                zones.add(c);
+            }
+        }));
+    }
+
+    public void setPlayerStore(PlayerStore store) {
+        this.store = store;
+    }
+
+    public PlayerStore getPlayerStore() {
+        return store;
+    }
+
+    public void setGatewayTrusted(boolean gatewayTrusted) {
+        this.gatewayTrusted = gatewayTrusted;
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public TransportMetrics getTransportMetrics() {
+        return transportMetrics;
+    }
+
+    public void setUdpTransport(UdpTransport udp) {
+        this.udp = udp;
+    }
+
+    public UdpTransport getUdpTransport() {
+        return udp;
+    }
+
+    public WorldSnapshot getWorld() {
+        return world;
+    }
+
+    @Override
+    public ClientSession onConnect(Connection conn) {
+        return join(newSession(conn));
+    }
+
+    static ClientSession newSession(Connection conn) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Player player = new Player(conn.getPlayerId(), GameConfig.MAP_WIDTH / 2 + random.nextInt(30), GameConfig.MAP_HEIGHT / 2 + random.nextInt(50));
+        return new ClientSession(conn, player);
+    }
+
+    ClientSession join(ClientSession session) {
+        Connection conn = session.connection;
+        Player player = session.player;
+        session.protocol = this;
+        metrics.connectionsOpened.increment();
+
+        conn.send("ID:" + player.id);
+        if (udp != null) {
+            conn.send("UDP:" + udp.getPort() + ":" + udp.offer(session));
+        }
+        sendChickens(session, world.chickens);
+        enqueue(new Command(null, () -> {
+            if (session.disconnected) return;
+
+            player.entityId = playerEntities.add(player);
+            players.put(player.id, player);
+            clients.add(session);
+            if (zones != null) {
+                zones.add(session);
+            }
+        }));
+        return session;
+    }
+
+    @Override
+    public void onMessage(ClientSession session, String input) {
+        metrics.recordMessage(input);
+        enqueue(new Command(session, () -> handleMessage(session, input)));
+    }
+
+    @Override
+    public void onFrame(ClientSession session, ByteBuffer frame) {
+        metrics.recordFrame(frame.get(frame.position()));
+        enqueue(new Command(session, () -> handleFrame(session, frame)));
+    }
+
+    @Override
+    public boolean onHello(ClientSession session, String hello) {
+        boolean binary = hello.equals(BinaryProtocol.HELLO_BINARY);
+        enqueue(new Command(session, () -> {
+            if (!binary) {
+                session.send(BinaryProtocol.HELLO_TEXT);
+                return;
+            }
+            session.send(BinaryProtocol.HELLO_BINARY);
+            session.binary = true;
+            session.deltaSnapshots = true;
+            session.lastAckedSeq = SnapshotCodec.KEYFRAME;
+            session.views.clear();
+        }));
+        return binary;
+    }
+
+    @Override
+    public void onDisconnect(ClientSession session) {
+        session.disconnected = true;
+        if (udp != null) {
+            udp.unbind(session);
+        }
+        metrics.connectionsClosed.increment();
+        enqueue(new Command(null, () -> {
+            if (playerEntities.get(session.player.entityId) == session.player) {
+                playerEntities.remove(session.player.entityId);
+            }
+            players.remove(session.player.id, session.player);
+            clients.remove(session);
+            if (session.profile != null) {
+                store.logout(session.profile);
+            }
+            if (zones != null) {
+                zones.remove(session);
+            }
+            if (session.connection.getOutbound().isSlowConsumer()) {
+                slowConsumerDisconnects.incrementAndGet();
+                metrics.slowConsumerDisconnects.increment();
+            }
+        }));
+    }
+
+    private void enqueue(Command command) {
+        commandDepth.incrementAndGet();
+        commands.add(command);
+    }
+
+    public void tick() {
+        playerEntities.advance();
+        Command command;
+        long drainStart = System.nanoTime();
+        while ((command = commands.poll()) != null) {
+            commandDepth.decrementAndGet();
+            metrics.recordCommandLatency(drainStart - command.enqueuedAt);
+            if (command.session != null && playerEntities.get(command.session.player.entityId) != command.session.player) continue;
+
+            try {
+                command.action.run();
+            } catch (RuntimeException e) {
+                String source = command.session != null ? command.session.player.id : "server";
+                System.out.println("Error handling input from " + source + ": " + e);
+            }
+        }
+
+        if (zones != null) {
+            zones.simulate(this::integrateMovement);
+        } else {
+            for (ClientSession c : clients) {
+                integrateMovement(c);
+            }
+            for (Player p : players.values()) {
+                p.updateState();
+            }
+            for (Chicken chicken : globalChickens) {
+                chicken.update(globalChickens);
+            }
+        }
+        if (gatewayTrusted) {
+            checkRegions();
+        }
+
+        WorldSnapshot snapshot = WorldSnapshot.capture(++tickCount, players.values(), globalChickens, clients);
+        world = snapshot;
+        metrics.setWorld(snapshot);
+        long broadcastStart = System.nanoTime();
+        broadcast(snapshot);
+        metrics.recordBroadcast(System.nanoTime() - broadcastStart);
+    }
+
+    private void handleMessage(ClientSession session, String input) {
+        Player player = session.player;
+        if (input.startsWith("MOVE:")) {
+            String dir = input.split(":")[1];
+            if (!BinaryProtocol.isDirection(dir)) {
+                System.out.println("Invalid direction from " + player.id + ": " + dir);
+            } else if (canMove(player, dir)) {
+                player.move(dir);
+            }
+        } else if (input.startsWith("INPUT:")) {
+            String[] parts = input.split(":");
+            String dir = parts[2].equals("none") ? null : parts[2];
+            if (dir != null && !BinaryProtocol.isDirection(dir)) {
+                System.out.println("Invalid direction from " + player.id + ": " + dir);
+                return;
+            }
+            applyInput(session, Integer.parseInt(parts[1]), dir);
+        } else if (input.equals("STOP")) {
+            player.stop();
+        } else if (input.equals("ATTACK")) {
+            player.attack();
+        } else if (input.startsWith("LOGIN:")) {
+            login(session, input.substring(6));
+        } else if (input.startsWith("CHICKEN_ATTACK:")) {
+
+            String chickenData = input.split(":", 2)[1];
+            if (chickenData.startsWith("Chicken,")) {
+                handleChickenAttack(session, chickenData);
+            } else {
+                attackChicken(session, chickenEntities.get(Integer.parseInt(chickenData)));
+            }
+        } else if (input.equals("SNAPSHOTS:DELTA")) {
+            session.deltaSnapshots = true;
+            session.lastAckedSeq = SnapshotCodec.KEYFRAME;
+            session.views.clear();
+        } else if (input.startsWith("ACK:")) {
+            acknowledge(session, Integer.parseInt(input.substring(4)));
+        } else if (input.startsWith(MigrationState.GATEWAY_PREFIX) && gatewayTrusted) {
+            String[] parts = input.split(":");
+            session.regionMinX = Integer.parseInt(parts[1]);
+            session.regionMaxX = Integer.parseInt(parts[2]);
+            session.migrating = false;
+        } else if (input.startsWith(MigrationState.RESTORE_PREFIX) && gatewayTrusted) {
+            restore(session, MigrationState.fromString(input.substring(MigrationState.RESTORE_PREFIX.length())));
+        }
+    }
+
+    private void restore(ClientSession session, MigrationState state) {
+        Player player = session.player;
+        players.remove(player.id, player);
+        player.id = state.player.id;
+        player.x = state.player.x;
+        player.y = state.player.y;
+        player.direction = state.player.direction;
+        player.state = state.player.state;
+        player.money = state.player.money;
+        players.put(player.id, player);
+        session.lastInputSeq = state.inputSeq;
+        session.moveDirection = state.moveDirection;
+        if (state.profile != null && store != null && session.profile == null) {
+            session.profile = store.restore(state.profile);
+            if (session.profile != null) {
+                player.money = session.profile.getMoney();
+            }
+        }
+    }
+
+    private void checkRegions() {
+        for (ClientSession c : clients) {
+            if (c.migrating) continue;
+
+            int centerX = c.player.x + GameConfig.PLAYER_SIZE / 2;
+            if (centerX >= c.regionMinX - MIGRATE_MARGIN && centerX < c.regionMaxX + MIGRATE_MARGIN) continue;
+
+            c.migrating = true;
+            String state = new MigrationState(c.lastInputSeq, c.moveDirection, c.player, c.profile != null ? c.profile.toLine() : null).toString();
+            if (c.binary) {
+                c.connection.sendBytes(BinaryProtocol.encodeMigrate(state));
+            } else {
+                c.send(MigrationState.MIGRATE_PREFIX + state);
+            }
+        }
+    }
+
+    private void handleFrame(ClientSession session, ByteBuffer frame) {
+        Player player = session.player;
+        byte opcode = frame.get();
+        switch (opcode) {
+            case BinaryProtocol.OP_MOVE:
+                String dir = BinaryProtocol.decodeMove(frame);
+                if (canMove(player, dir)) {
+                    player.move(dir);
+                }
+                break;
+            case BinaryProtocol.OP_INPUT:
+                int inputSeq = frame.getInt();
+                applyInput(session, inputSeq, BinaryProtocol.decodeInputDirection(frame));
+                break;
+            case BinaryProtocol.OP_STOP:
+                player.stop();
+                break;
+            case BinaryProtocol.OP_ATTACK:
+                player.attack();
+                break;
+            case BinaryProtocol.OP_MONEY:
+                break;
+            case BinaryProtocol.OP_CHICKEN_ATTACK:
+                attackChicken(session, chickenEntities.get(frame.getInt()));
+                break;
+            case BinaryProtocol.OP_ACK:
+                acknowledge(session, frame.getInt());
+                break;
+            default:
+                System.out.println("Unknown opcode from " + player.id + ": " + opcode);
+        }
+    }
+
+    private void applyInput(ClientSession session, int inputSeq, String direction) {
+        if (inputSeq <= session.lastInputSeq) return;
+
+        session.lastInputSeq = inputSeq;
+        session.moveDirection = direction;
+        if (direction == null) {
+            session.moveRemainder = 0;
+            session.player.stop();
+        }
+    }
+
+    private void integrateMovement(ClientSession session) {
+        if (session.moveDirection == null || !canMove(session.player, session.moveDirection)) return;
+
+        session.moveRemainder += GameConfig.MOVE_SPEED_PER_SECOND * tickSeconds;
+        int distance = (int) session.moveRemainder;
+        session.moveRemainder -= distance;
+        session.player.move(session.moveDirection, distance);
+    }
+
+    private void acknowledge(ClientSession session, int seq) {
+        if (seq == SnapshotCodec.KEYFRAME || seq > session.lastAckedSeq) {
+            session.lastAckedSeq = seq;
+        }
+    }
+
+    private void broadcast(WorldSnapshot snapshot) {
+        buildInterestGrid(snapshot);
+        Broadcast broadcast = new Broadcast(snapshot, snapshotSeq);
+        if (zones != null) {
+            zones.runPhase(zone -> broadcastTo(zone.sessions, broadcast));
+        } else {
+            broadcastTo(snapshot.sessions, broadcast);
+        }
+
+        if (broadcast.current != null || broadcast.currentRecords != null) {
+            snapshotSeq++;
+        }
+    }
+
+    private static class Broadcast {
+        final WorldSnapshot snapshot;
+        final int seq;
+        Map<String, String[]> current;
+        String keyframe;
+        Map<String, byte[]> currentRecords;
+        byte[] binaryKeyframe;
+
+        Broadcast(WorldSnapshot snapshot, int seq) {
+            this.snapshot = snapshot;
+            this.seq = seq;
+            for (ClientSession c : snapshot.sessions) {
+                if (!c.deltaSnapshots) continue;
+
+                if (c.binary && currentRecords == null) {
+                    currentRecords = BinaryProtocol.captureRecords(snapshot.players, snapshot.chickens);
+                    binaryKeyframe = BinaryProtocol.encodeSnapshot(seq, SnapshotCodec.KEYFRAME, null, currentRecords);
+                } else if (!c.binary && current == null) {
+                    current = SnapshotCodec.capture(snapshot.players, snapshot.chickens);
+                    keyframe = SnapshotCodec.encode(seq, SnapshotCodec.KEYFRAME, 0, null, current);
+                }
+            }
+        }
+    }
+
+    private void broadcastTo(List<ClientSession> sessions, Broadcast broadcast) {
+        WorldSnapshot snapshot = broadcast.snapshot;
+        int seq = broadcast.seq;
+        Map<Integer, String> legacyByCell = new HashMap<>();
+        Map<Integer, Map<String, String[]>> viewsByCell = new HashMap<>();
+        Map<Integer, Map<String, byte[]>> binaryViewsByCell = new HashMap<>();
+        Map<String, String> encodedByView = new HashMap<>();
+        Map<String, byte[]> binaryByView = new HashMap<>();
+
+        for (ClientSession c : sessions) {
+            Player self = snapshot.player(c.player.entityId);
+            if (self == null) continue;
+
+            int cell = interestGrid.cellOf(self.x, self.y);
+
+            if (!c.deltaSnapshots) {
+                String legacyMsg = legacyByCell.computeIfAbsent(cell, k -> encodeLegacyPlayers(snapshot, k));
+                c.sendSnapshot(legacyMsg);
+                legacyBytesSent.addAndGet(legacyMsg.length() + 1);
+                metrics.snapshotsSent.increment();
+                continue;
+            }
+
+            if (c.binary) {
+                Map<String, byte[]> world = broadcast.currentRecords;
+                Map<String, byte[]> visible = binaryViewsByCell.computeIfAbsent(cell, k -> interestGrid.view(k, world));
+                ClientSession.View<byte[]> base = baseView(c, seq);
+                c.views.put(seq, new ClientSession.View<>(cell, visible));
+
+                int baseSeq = base != null ? c.lastAckedSeq : SnapshotCodec.KEYFRAME;
+                String viewKey = baseSeq + ":" + (base != null ? base.cell : -1) + ":" + cell;
+                byte[] frame = binaryByView.get(viewKey);
+                if (frame == null) {
+                    frame = BinaryProtocol.encodeSnapshot(seq, baseSeq, base != null ? base.entities : null, visible);
+                    binaryByView.put(viewKey, frame);
+                }
+
+                byte[] out = c.lastInputSeq != 0 ? BinaryProtocol.withInputAck(frame, c.lastInputSeq) : frame;
+                if (udp == null || !udp.send(c, out)) {
+                    c.connection.sendSnapshot(out);
+                }
+                snapshotBytesSent.addAndGet(frame.length);
+                metrics.snapshotsSent.increment();
+                snapshotBytesFull.addAndGet(broadcast.binaryKeyframe.length);
+                continue;
+            }
+
+            Map<String, String[]> world = broadcast.current;
+            Map<String, String[]> visible = viewsByCell.computeIfAbsent(cell, k -> interestGrid.view(k, world));
+            ClientSession.View<String[]> base = baseView(c, seq);
+            c.views.put(seq, new ClientSession.View<>(cell, visible));
+
+            int baseSeq = base != null ? c.lastAckedSeq : SnapshotCodec.KEYFRAME;
+            String viewKey = baseSeq + ":" + (base != null ? base.cell : -1) + ":" + cell;
+            String body = encodedByView.get(viewKey);
+            if (body == null) {
+                body = SnapshotCodec.encodeBody(base != null ? base.entities : null, visible);
+                encodedByView.put(viewKey, body);
+            }
+            String msg = SnapshotCodec.header(seq, baseSeq, c.lastInputSeq) + body;
+
+            c.sendSnapshot(msg);
+            snapshotBytesSent.addAndGet(msg.length() + 1);
+            metrics.snapshotsSent.increment();
+            snapshotBytesFull.addAndGet(broadcast.keyframe.length() + 1);
+        }
+    }
+
+    private void buildInterestGrid(WorldSnapshot snapshot) {
+        interestGrid.clear();
+        for (Player p : snapshot.players) {
+            interestGrid.add(SnapshotCodec.PLAYER_PREFIX + p.entityId, p.x, p.y);
+        }
+        for (Chicken chicken : snapshot.chickens) {
+            interestGrid.add(SnapshotCodec.CHICKEN_PREFIX + chicken.entityId, chicken.x, chicken.y);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ClientSession.View<T> baseView(ClientSession c, int seq) {
+        if (c.lastAckedSeq == seq) return null;
+        return (ClientSession.View<T>) c.views.get(c.lastAckedSeq);
+    }
+
+    private String encodeLegacyPlayers(WorldSnapshot snapshot, int cell) {
+        StringBuilder sb = new StringBuilder();
+        for (String key : interestGrid.keysAround(cell)) {
+            if (!key.startsWith(SnapshotCodec.PLAYER_PREFIX)) continue;
+
+            Player p = snapshot.player(Integer.parseInt(key.substring(SnapshotCodec.PLAYER_PREFIX.length())));
+            if (p != null) {
+                sb.append(p.toString()).append(";");
+            }
+        }
+        return "PLAYERS:" + sb.toString();
+    }
+
+    public String summarizeSnapshotBytesAndReset() {
+        long sent = snapshotBytesSent.getAndSet(0);
+        long full = snapshotBytesFull.getAndSet(0);
+        return String.format("delta=%dB keyframe-equivalent=%dB (%.1fx smaller) legacy=%dB",
+                sent, full, sent > 0 ? full / (double) sent : 0.0, legacyBytesSent.getAndSet(0));
+    }
+
+    public String summarizeOutbound() {
+        List<ClientSession> sessions = world.sessions;
+        int queuedBytes = 0;
+        int maxDepth = 0;
+        long coalesced = 0;
+        for (ClientSession c : sessions) {
+            OutboundQueue outbound = c.connection.getOutbound();
+            queuedBytes += outbound.getQueuedBytes();
+            maxDepth = Math.max(maxDepth, outbound.getMaxDepth());
+            coalesced += outbound.getCoalesced();
+        }
+        return String.format("connections=%d queued=%dB max-depth=%d coalesced=%d slow-disconnects=%d",
+                sessions.size(), queuedBytes, maxDepth, coalesced, slowConsumerDisconnects.getAndSet(0));
+    }
+
+    private void sendChickens(ClientSession session, List<Chicken> chickens) {
+        StringBuilder sb = new StringBuilder();
+        for (Chicken chicken : chickens) {
+            sb.append(chicken.toString()).append(";");
+        }
+        String msg = "CHICKENS:" + sb.toString();
+        session.send(msg);
+    }
+
+    private void handleChickenAttack(ClientSession attacker, String chickenData) {
+        try {
+            handleChickenAttack(attacker, Chicken.fromString(chickenData));
+        } catch (Exception e) {
+            System.out.println("Error handling chicken attack: " + e.getMessage());
+        }
+    }
+
+    private void handleChickenAttack(ClientSession attacker, Chicken attackedChicken) {
+        Chicken target = null;
+        int closest = GameConfig.CHICKEN_SIZE;
+        for (Chicken globalChicken : globalChickens) {
+            int distance = GameConfig.calculateTopDownDistance(globalChicken.x, globalChicken.y, attackedChicken.x, attackedChicken.y);
+            if (distance < closest) {
+                closest = distance;
+                target = globalChicken;
+            }
+        }
+        attackChicken(attacker, target);
+    }
+
+    private void attackChicken(ClientSession session, Chicken target) {
+        if (target == null || !target.canBeAttacked() || session.migrating) return;
+
+        Player attacker = session.player;
+        int reach = GameConfig.calculateTopDownDistance(
+                attacker.x + GameConfig.PLAYER_SIZE / 2, attacker.y + GameConfig.PLAYER_SIZE / 2,
+                target.x + GameConfig.CHICKEN_SIZE / 2, target.y + GameConfig.CHICKEN_SIZE / 2);
+        if (reach > ATTACK_REACH) {
+            System.out.println("Rejected chicken attack from " + attacker.id + ": out of reach (" + reach + ")");
+            return;
+        }
+
+        target.takeDamage(1);
+        System.out.println("Updated global chicken: " + target.x + ", " + target.y + " Health: " + target.health + " Alive: " + target.isAlive + " State: " + target.state);
+
+        broadcastChickenUpdate(target.toString());
+        broadcastAllChickens();
+        if (!target.isAlive) {
+            rewardKill(session, target);
+        }
+    }
+
+    private void rewardKill(ClientSession session, Chicken target) {
+        if (session.profile == null) {
+            session.player.addMoney(target.getReward());
+            return;
+        }
+        store.reward(session.profile, target.getReward(), DroppedItem.rollChickenLoot(ThreadLocalRandom.current()));
+        session.player.money = session.profile.getMoney();
+        sendProfile(session);
+    }
+
+    private void login(ClientSession session, String name) {
+        if (store == null || session.profile != null) return;
+
+        if (!PlayerStore.isValidName(name)) {
+            System.out.println("Rejected login from " + session.player.id + ": invalid name");
+            return;
+        }
+        PlayerProfile profile = store.login(name);
+        if (profile == null) {
+            System.out.println("Rejected login from " + session.player.id + ": " + name + " is already playing");
+            return;
+        }
+        session.profile = profile;
+        session.player.money = profile.getMoney();
+        sendProfile(session);
+    }
+
+    private void sendProfile(ClientSession session) {
+        String profile = session.profile.encode();
+        if (session.binary) {
+            session.connection.sendBytes(BinaryProtocol.encodeProfile(profile));
+        } else {
+            session.send("PROFILE:" + profile);
+        }
+    }
+
+    private void broadcastChickenUpdate(String chickenData) {
+        String msg = "CHICKEN_UPDATE:" + chickenData;
+        for (ClientSession c : clients) {
+            if (!c.deltaSnapshots) {
+                c.send(msg);
+            }
+        }
+    }
+
+    private void broadcastAllChickens() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < globalChickens.size(); i++) {
+            if (i > 0) sb.append(";");
+            sb.append(globalChickens.get(i).toString());
+        }
+        String msg = "CHICKENS:" + sb.toString();
+        for (ClientSession c : clients) {
+            if (!c.deltaSnapshots) {
+                c.send(msg);
+            }
+        }
+    }
+
+
+    private boolean canMove(Player player, String direction) {
+        return true;
+    }
+}
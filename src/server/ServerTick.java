@@ -0,0 +1,93 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ServerTick implements Runnable {
+    private static final int METRICS_INTERVAL_SECONDS = 10;
+
+    private final ServerProtocol protocol;
+    private final int tickRate;
+    private final TickStats stats;
+    private final String name;
+    private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+    private ScheduledExecutorService ownScheduler;
+
+    public ServerTick(ServerProtocol protocol, int tickRate) {
+        this(protocol, tickRate, null);
+    }
+
+    public ServerTick(ServerProtocol protocol, int tickRate, String name) {
+        this.protocol = protocol;
+        this.name = name;
+        this.tickRate = Math.max(1, tickRate);
+        protocol.setTickRate(this.tickRate);
+        this.stats = new TickStats(1_000_000_000L / this.tickRate);
+    }
+
+    public void start(int statsIntervalSeconds) {
+        ownScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "server-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        start(ownScheduler, statsIntervalSeconds, 0);
+    }
+
+    public void start(ScheduledExecutorService scheduler, int statsIntervalSeconds, long initialDelayNanos) {
+        String prefix = name != null ? "[" + name + "] " : "";
+        long period = 1_000_000_000L / tickRate;
+        tasks.add(scheduler.scheduleAtFixedRate(this, initialDelayNanos % period, period, TimeUnit.NANOSECONDS));
+        tasks.add(scheduler.scheduleAtFixedRate(protocol.getMetrics()::rotate, METRICS_INTERVAL_SECONDS, METRICS_INTERVAL_SECONDS, TimeUnit.SECONDS));
+        if (statsIntervalSeconds > 0) {
+            tasks.add(scheduler.scheduleAtFixedRate(() -> {
+                System.out.println(prefix + "Tick stats: " + stats.summarizeAndReset());
+                System.out.println(prefix + "Snapshot bytes: " + protocol.summarizeSnapshotBytesAndReset());
+                System.out.println(prefix + "Outbound: " + protocol.summarizeOutbound());
+                if (protocol.getUdpTransport() != null && name == null) {
+                    System.out.println("UDP: " + protocol.getUdpTransport().summarizeAndReset());
+                }
+                if (protocol.getPlayerStore() != null && name == null) {
+                    System.out.println("Player store: " + protocol.getPlayerStore().summarize());
+                }
+            }, statsIntervalSeconds, statsIntervalSeconds, TimeUnit.SECONDS));
+        }
+        System.out.println(prefix + "Server tick running at " + tickRate + " Hz");
+    }
+
+    public void stop() {
+        for (ScheduledFuture<?> task : tasks) {
+            task.cancel(false);
+        }
+        tasks.clear();
+        if (ownScheduler != null) {
+            ownScheduler.shutdown();
+        }
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        try {
+            protocol.tick();
+        } catch (Exception e) {
+            System.out.println("Error during server tick: " + e.getMessage());
+            e.printStackTrace();
+        }
+        long duration = System.nanoTime() - start;
+        stats.record(duration);
+        protocol.getMetrics().recordTick(duration);
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public TickStats getStats() {
+        return stats;
+    }
+}
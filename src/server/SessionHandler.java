@@ -0,0 +1,17 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+public interface SessionHandler {
+    ClientSession onConnect(Connection conn);
+
+    void onMessage(ClientSession session, String input);
+
+    void onFrame(ClientSession session, ByteBuffer frame);
+
+    boolean onHello(ClientSession session, String hello);
+
+    void onDisconnect(ClientSession session);
+
+    TransportMetrics getTransportMetrics();
+}
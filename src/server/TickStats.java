@@ -0,0 +1,53 @@
+package server;
+
+public class TickStats {
+    private final long budgetNanos;
+    private long totalTicks = 0;
+    private long totalOverruns = 0;
+    private long windowTicks = 0;
+    private long windowNanos = 0;
+    private long windowMaxNanos = 0;
+    private long windowOverruns = 0;
+    private long lastNanos = 0;
+
+    public TickStats(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public synchronized void record(long durationNanos) {
+        totalTicks++;
+        windowTicks++;
+        windowNanos += durationNanos;
+        lastNanos = durationNanos;
+        if (durationNanos > windowMaxNanos) {
+            windowMaxNanos = durationNanos;
+        }
+        if (durationNanos > budgetNanos) {
+            totalOverruns++;
+            windowOverruns++;
+        }
+    }
+
+    public synchronized long getTotalTicks() {
+        return totalTicks;
+    }
+
+    public synchronized long getTotalOverruns() {
+        return totalOverruns;
+    }
+
+    public synchronized long getLastNanos() {
+        return lastNanos;
+    }
+
+    public synchronized String summarizeAndReset() {
+        double avgMs = windowTicks > 0 ? windowNanos / (double) windowTicks / 1_000_000.0 : 0;
+        String summary = String.format("ticks=%d avg=%.3fms max=%.3fms overruns=%d budget=%.1fms",
+                windowTicks, avgMs, windowMaxNanos / 1_000_000.0, windowOverruns, budgetNanos / 1_000_000.0);
+        windowTicks = 0;
+        windowNanos = 0;
+        windowMaxNanos = 0;
+        windowOverruns = 0;
+        return summary;
+    }
+}
@@ -0,0 +1,7 @@
+package server;
+
+public interface TransportMetricsMXBean {
+    long getBytesIn();
+
+    long getBytesOut();
+}
@@ -0,0 +1,158 @@
+package server;
+
+import common.BinaryProtocol;
+import common.GameConfig;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class UdpTransport implements Runnable {
+    private final DatagramChannel channel;
+    private final SessionHandler protocol;
+    private final int port;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<Long, ClientSession> tokens = new ConcurrentHashMap<>();
+    private final Map<SocketAddress, ClientSession> bound = new ConcurrentHashMap<>();
+    private final AtomicLong datagramsSent = new AtomicLong();
+    private final AtomicLong datagramsDropped = new AtomicLong();
+    private final AtomicLong tooLarge = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public UdpTransport(SessionHandler protocol, int port) throws IOException {
+        this.protocol = protocol;
+        this.channel = DatagramChannel.open();
+        this.channel.bind(new InetSocketAddress(port));
+        this.port = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    public void start() {
+        Thread thread = new Thread(this, "udp-transport");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("UDP snapshot transport on " + port);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public long offer(ClientSession session) {
+        long token;
+        do {
+            token = random.nextLong();
+        } while (tokens.putIfAbsent(token, session) != null);
+        session.udpToken = token;
+        return token;
+    }
+
+    public void unbind(ClientSession session) {
+        tokens.remove(session.udpToken, session);
+        SocketAddress address = session.udpAddress;
+        if (address != null) {
+            bound.remove(address, session);
+        }
+        session.udpAddress = null;
+    }
+
+    public boolean send(ClientSession session, byte[] frame) {
+        SocketAddress address = session.udpAddress;
+        if (address == null) return false;
+        if (frame.length > GameConfig.MAX_DATAGRAM_SIZE) {
+            tooLarge.incrementAndGet();
+            return false;
+        }
+
+        try {
+            int sent = channel.send(ByteBuffer.wrap(BinaryProtocol.encodeDatagram(session.udpSendSeq++, frame)), address);
+            if (sent > 0) {
+                datagramsSent.incrementAndGet();
+                protocol.getTransportMetrics().recordBytesOut(sent);
+            } else {
+                datagramsDropped.incrementAndGet();
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocate(GameConfig.MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress from = channel.receive(buffer);
+                buffer.flip();
+                handleDatagram(from, buffer);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException | RuntimeException e) {
+                rejected.incrementAndGet();
+            }
+        }
+    }
+
+    private void handleDatagram(SocketAddress from, ByteBuffer datagram) {
+        if (datagram.remaining() < 5) {
+            rejected.incrementAndGet();
+            return;
+        }
+        received.incrementAndGet();
+        protocol.getTransportMetrics().recordBytesIn(datagram.remaining());
+
+        int packetSeq = datagram.getInt();
+        byte opcode = datagram.get(datagram.position());
+        ClientSession session = bound.get(from);
+        if (opcode == BinaryProtocol.OP_UDP_HELLO && datagram.remaining() >= 9) {
+            session = bind(from, datagram.getLong(datagram.position() + 1));
+        }
+        if (session == null) {
+            rejected.incrementAndGet();
+            return;
+        }
+        if (!session.udpReceived.accept(packetSeq)) return;
+
+        if (opcode == BinaryProtocol.OP_INPUT || opcode == BinaryProtocol.OP_ACK) {
+            byte[] frame = new byte[datagram.remaining()];
+            datagram.get(frame);
+            session.protocol.onFrame(session, ByteBuffer.wrap(frame));
+        }
+    }
+
+    private ClientSession bind(SocketAddress from, long token) {
+        ClientSession session = tokens.get(token);
+        if (session == null) return null;
+
+        SocketAddress previous = session.udpAddress;
+        if (!from.equals(previous)) {
+            if (previous != null) {
+                bound.remove(previous, session);
+            }
+            bound.put(from, session);
+            session.udpAddress = from;
+        }
+        return session;
+    }
+
+    public String summarizeAndReset() {
+        return String.format("sent=%d dropped=%d tooLarge=%d received=%d rejected=%d bound=%d",
+                datagramsSent.getAndSet(0), datagramsDropped.getAndSet(0), tooLarge.getAndSet(0),
+                received.getAndSet(0), rejected.getAndSet(0), bound.size());
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
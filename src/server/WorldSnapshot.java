@@ -0,0 +1,48 @@
+package server;
+
+import common.Chicken;
+import common.Player;
+import java.util.*;
+
+public class WorldSnapshot {
+    public static final WorldSnapshot EMPTY = new WorldSnapshot(0, List.of(), List.of(), List.of());
+
+    public final long tick;
+    public final List<Player> players;
+    public final List<Chicken> chickens;
+    public final List<ClientSession> sessions;
+    private final Player[] playersByEntityId;
+
+    private WorldSnapshot(long tick, List<Player> players, List<Chicken> chickens, List<ClientSession> sessions) {
+        this.tick = tick;
+        this.players = players;
+        this.chickens = chickens;
+        this.sessions = sessions;
+
+        int capacity = 0;
+        for (Player p : players) {
+            capacity = Math.max(capacity, p.entityId + 1);
+        }
+        this.playersByEntityId = new Player[capacity];
+        for (Player p : players) {
+            playersByEntityId[p.entityId] = p;
+        }
+    }
+
+    public Player player(int entityId) {
+        return entityId >= 0 && entityId < playersByEntityId.length ? playersByEntityId[entityId] : null;
+    }
+
+    public static WorldSnapshot capture(long tick, Collection<Player> players, List<Chicken> chickens, List<ClientSession> sessions) {
+        List<Player> playerCopies = new ArrayList<>(players.size());
+        for (Player p : players) {
+            playerCopies.add(p.copy());
+        }
+        List<Chicken> chickenCopies = new ArrayList<>(chickens.size());
+        for (Chicken chicken : chickens) {
+            chickenCopies.add(chicken.copy());
+        }
+        return new WorldSnapshot(tick, Collections.unmodifiableList(playerCopies),
+                Collections.unmodifiableList(chickenCopies), List.copyOf(sessions));
+    }
+}
@@ -0,0 +1,74 @@
+package server;
+
+import common.Chicken;
+import common.GameConfig;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Zone {
+    static final int BORDER = GameConfig.CHICKEN_SIZE + 2;
+
+    public final int index;
+    public final int minX, minY, maxX, maxY;
+    final List<ClientSession> sessions = new ArrayList<>();
+    final List<Chicken> chickens = new ArrayList<>();
+    final List<Zone> neighbours = new ArrayList<>();
+    final List<ClientSession> leavingSessions = new ArrayList<>();
+    final List<Chicken> leavingChickens = new ArrayList<>();
+    final List<Chicken> nearby = new ArrayList<>();
+    List<Chicken> border = List.of();
+
+    Zone(int index, int minX, int minY, int maxX, int maxY) {
+        this.index = index;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    boolean contains(int x, int y) {
+        return x >= minX && x < maxX && y >= minY && y < maxY;
+    }
+
+    private boolean nearEdge(int x, int y) {
+        return (long) x - minX < BORDER || (long) maxX - x <= BORDER || (long) y - minY < BORDER || (long) maxY - y <= BORDER;
+    }
+
+    void collectLeaving() {
+        leavingSessions.clear();
+        leavingChickens.clear();
+        for (ClientSession session : sessions) {
+            if (!contains(session.player.x, session.player.y)) {
+                leavingSessions.add(session);
+            }
+        }
+        for (Chicken chicken : chickens) {
+            if (!contains(chicken.x, chicken.y)) {
+                leavingChickens.add(chicken);
+            }
+        }
+    }
+
+    void exportBorder() {
+        if (neighbours.isEmpty()) {
+            border = List.of();
+            return;
+        }
+        List<Chicken> copies = new ArrayList<>();
+        for (Chicken chicken : chickens) {
+            if (nearEdge(chicken.x, chicken.y)) {
+                copies.add(chicken.copy());
+            }
+        }
+        border = copies;
+    }
+
+    List<Chicken> collisionSet() {
+        nearby.clear();
+        nearby.addAll(chickens);
+        for (Zone neighbour : neighbours) {
+            nearby.addAll(neighbour.border);
+        }
+        return nearby;
+    }
+}
@@ -0,0 +1,140 @@
+package server;
+
+import common.Chicken;
+import common.GameConfig;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+public class ZoneSimulation {
+    private final int columns;
+    private final int rows;
+    private final int zoneWidth;
+    private final int zoneHeight;
+    private final Zone[] zones;
+    private final ExecutorService[] workers;
+    private final Future<?>[] pending;
+
+    public ZoneSimulation(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.zoneWidth = (GameConfig.MAP_WIDTH + columns - 1) / columns;
+        this.zoneHeight = (GameConfig.MAP_HEIGHT + rows - 1) / rows;
+        this.zones = new Zone[columns * rows];
+        this.workers = new ExecutorService[zones.length];
+        this.pending = new Future<?>[zones.length];
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int index = row * columns + column;
+                int minX = column == 0 ? Integer.MIN_VALUE : column * zoneWidth;
+                int minY = row == 0 ? Integer.MIN_VALUE : row * zoneHeight;
+                int maxX = column == columns - 1 ? Integer.MAX_VALUE : (column + 1) * zoneWidth;
+                int maxY = row == rows - 1 ? Integer.MAX_VALUE : (row + 1) * zoneHeight;
+                zones[index] = new Zone(index, minX, minY, maxX, maxY);
+                workers[index] = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "zone-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                    for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                        if (r != row || c != column) {
+                            zones[row * columns + column].neighbours.add(zones[r * columns + c]);
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("Simulating " + columns + "x" + rows + " zones of " + zoneWidth + "x" + zoneHeight + "px");
+    }
+
+    public int size() {
+        return zones.length;
+    }
+
+    Zone zoneFor(int x, int y) {
+        int column = Math.max(0, Math.min(columns - 1, Math.floorDiv(x, zoneWidth)));
+        int row = Math.max(0, Math.min(rows - 1, Math.floorDiv(y, zoneHeight)));
+        return zones[row * columns + column];
+    }
+
+    void add(ClientSession session) {
+        Zone zone = zoneFor(session.player.x, session.player.y);
+        zone.sessions.add(session);
+        session.zone = zone;
+    }
+
+    void remove(ClientSession session) {
+        if (session.zone != null) {
+            session.zone.sessions.remove(session);
+            session.zone = null;
+        }
+    }
+
+    void addChickens(List<Chicken> chickens) {
+        for (Chicken chicken : chickens) {
+            zoneFor(chicken.x, chicken.y).chickens.add(chicken);
+        }
+        runPhase(Zone::exportBorder);
+    }
+
+    void simulate(Consumer<ClientSession> movement) {
+        runPhase(zone -> {
+            for (ClientSession session : zone.sessions) {
+                movement.accept(session);
+                session.player.updateState();
+            }
+            List<Chicken> nearby = zone.collisionSet();
+            for (Chicken chicken : zone.chickens) {
+                chicken.update(nearby);
+            }
+            zone.collectLeaving();
+        });
+        handOff();
+        runPhase(Zone::exportBorder);
+    }
+
+    private void handOff() {
+        for (Zone zone : zones) {
+            for (ClientSession session : zone.leavingSessions) {
+                zone.sessions.remove(session);
+                add(session);
+            }
+            for (Chicken chicken : zone.leavingChickens) {
+                zone.chickens.remove(chicken);
+                zoneFor(chicken.x, chicken.y).chickens.add(chicken);
+            }
+        }
+    }
+
+    void runPhase(Consumer<Zone> task) {
+        for (int i = 0; i < zones.length; i++) {
+            Zone zone = zones[i];
+            pending[i] = workers[i].submit(() -> task.accept(zone));
+        }
+        for (int i = 0; i < zones.length; i++) {
+            try {
+                pending[i].get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for zone " + i, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Zone " + i + " failed", e.getCause());
+            }
+        }
+    }
+
+    public void shutdown() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+    }
+}